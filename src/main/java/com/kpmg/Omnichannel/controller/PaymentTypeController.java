@@ -2,6 +2,7 @@ package com.kpmg.omnichannel.controller;
 
 import com.kpmg.omnichannel.dto.PaymentTypeRequest;
 import com.kpmg.omnichannel.dto.PaymentTypeResponse;
+import com.kpmg.omnichannel.dto.ReferenceDataCacheMetricsResponse;
 import com.kpmg.omnichannel.service.PaymentTypeService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -23,10 +24,19 @@ public class PaymentTypeController {
     }
 
     @GetMapping
-    public ResponseEntity<List<PaymentTypeResponse>> getAllPaymentTypes() {
+    public ResponseEntity<List<PaymentTypeResponse>> getAllPaymentTypes(
+            @RequestParam(required = false) String channel) {
+        if (channel != null) {
+            return ResponseEntity.ok(paymentTypeService.getPaymentTypesForChannel(channel));
+        }
         return ResponseEntity.ok(paymentTypeService.getAllPaymentTypes());
     }
 
+    @GetMapping("/cache/metrics")
+    public ResponseEntity<ReferenceDataCacheMetricsResponse> getCacheMetrics() {
+        return ResponseEntity.ok(paymentTypeService.getCacheMetrics());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<PaymentTypeResponse> getPaymentTypeById(@PathVariable UUID id) {
         return ResponseEntity.ok(paymentTypeService.getPaymentTypeById(id));
@@ -1,13 +1,23 @@
 package com.kpmg.omnichannel.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kpmg.omnichannel.dto.BatchTransactionResponse;
+import com.kpmg.omnichannel.dto.SettlementMetricsResponse;
 import com.kpmg.omnichannel.dto.TransactionRequest;
 import com.kpmg.omnichannel.dto.TransactionResponse;
 import com.kpmg.omnichannel.model.TransactionStatus;
 import com.kpmg.omnichannel.service.TransactionService;
+import com.kpmg.omnichannel.service.TransactionSettlementService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -15,11 +25,40 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class TransactionController {
 
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
     private final TransactionService transactionService;
+    private final TransactionSettlementService settlementService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
-    public ResponseEntity<TransactionResponse> initiateTransaction(@RequestBody TransactionRequest request) {
-        return ResponseEntity.ok(transactionService.initiateTransaction(request));
+    public ResponseEntity<TransactionResponse> initiateTransaction(@RequestBody TransactionRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return ResponseEntity.ok(transactionService.initiateTransaction(request, idempotencyKey));
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BatchTransactionResponse> initiateTransactions(@RequestBody List<TransactionRequest> requests) {
+        return ResponseEntity.ok(transactionService.initiateTransactions(requests));
+    }
+
+    @PostMapping(value = "/batch", consumes = APPLICATION_NDJSON)
+    public ResponseEntity<BatchTransactionResponse> initiateTransactionsNdjson(InputStream body) throws IOException {
+        // One TransactionRequest per line, parsed incrementally from the request stream;
+        // reading stops at the first item over the batch limit
+        List<TransactionRequest> requests = new ArrayList<>();
+        try (MappingIterator<TransactionRequest> lines = objectMapper.readerFor(TransactionRequest.class).readValues(body)) {
+            while (lines.hasNextValue()) {
+                requests.add(lines.nextValue());
+                transactionService.checkBatchSize(requests.size());
+            }
+        }
+        return ResponseEntity.ok(transactionService.initiateTransactions(requests));
+    }
+
+    @GetMapping("/settlement/metrics")
+    public ResponseEntity<SettlementMetricsResponse> getSettlementMetrics() {
+        return ResponseEntity.ok(settlementService.getMetrics());
     }
 
     @GetMapping("/{id}")
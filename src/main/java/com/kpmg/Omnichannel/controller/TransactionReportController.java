@@ -4,13 +4,17 @@ import com.kpmg.omnichannel.dto.ApiResponse;
 import com.kpmg.omnichannel.dto.report.*;
 import com.kpmg.omnichannel.model.TransactionStatus;
 import com.kpmg.omnichannel.service.TransactionReportService;
+import com.kpmg.omnichannel.service.TransactionRollupService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -25,6 +29,7 @@ import java.util.UUID;
 public class TransactionReportController {
 
     private final TransactionReportService reportService;
+    private final TransactionRollupService rollupService;
 
     // ==================== TRANSACTION SUMMARY ====================
 
@@ -40,7 +45,7 @@ public class TransactionReportController {
 
     @GetMapping("/history")
     @Operation(summary = "Get transaction history with filters", 
-               description = "Returns paginated transaction history with optional filters")
+               description = "Returns paginated transaction history with optional filters. Supports offset paging or keyset paging via cursor")
     public ResponseEntity<ApiResponse<PaginatedTransactionHistoryDTO>> getTransactionHistory(
             @Parameter(description = "User ID to filter by") @RequestParam(required = false) UUID userId,
             @Parameter(description = "Merchant ID to filter by") @RequestParam(required = false) UUID merchantId,
@@ -53,7 +58,10 @@ public class TransactionReportController {
             @Parameter(description = "Page number (0-based)") @RequestParam(defaultValue = "0") Integer page,
             @Parameter(description = "Page size") @RequestParam(defaultValue = "10") Integer size,
             @Parameter(description = "Sort by field") @RequestParam(defaultValue = "createdAt") String sortBy,
-            @Parameter(description = "Sort direction (ASC/DESC)") @RequestParam(defaultValue = "DESC") String sortDirection) {
+            @Parameter(description = "Sort direction (ASC/DESC)") @RequestParam(defaultValue = "DESC") String sortDirection,
+            @Parameter(description = "Keyset cursor from the previous page's nextCursor; pass it empty for the first page. " +
+                    "Pages by creation time in sortDirection and ignores page/sortBy") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Count total elements in keyset mode") @RequestParam(defaultValue = "false") Boolean includeTotal) {
 
         TransactionHistoryRequest request = TransactionHistoryRequest.builder()
                 .userId(userId)
@@ -68,6 +76,8 @@ public class TransactionReportController {
                 .size(size)
                 .sortBy(sortBy)
                 .sortDirection(sortDirection)
+                .cursor(cursor)
+                .includeTotal(includeTotal)
                 .build();
 
         PaginatedTransactionHistoryDTO history = reportService.getTransactionHistory(request);
@@ -76,12 +86,45 @@ public class TransactionReportController {
 
     @GetMapping("/history/all")
     @Operation(summary = "Get all transaction history", 
-               description = "Returns all transactions without pagination (use with caution for large datasets)")
+               description = "Returns all transactions without pagination (use with caution for large datasets, prefer /history/export)")
     public ResponseEntity<ApiResponse<List<TransactionHistoryDTO>>> getAllTransactionHistory() {
         List<TransactionHistoryDTO> history = reportService.getAllTransactionHistory();
         return ResponseEntity.ok(ApiResponse.success("All transaction history retrieved successfully", history));
     }
 
+    @GetMapping("/history/export")
+    @Operation(summary = "Export transaction history", 
+               description = "Streams all transactions matching the filters, newest first, as NDJSON or CSV")
+    public ResponseEntity<StreamingResponseBody> exportTransactionHistory(
+            @Parameter(description = "User ID to filter by") @RequestParam(required = false) UUID userId,
+            @Parameter(description = "Merchant ID to filter by") @RequestParam(required = false) UUID merchantId,
+            @Parameter(description = "Payment Type ID to filter by") @RequestParam(required = false) UUID paymentTypeId,
+            @Parameter(description = "Transaction status to filter by") @RequestParam(required = false) TransactionStatus status,
+            @Parameter(description = "Start date (yyyy-MM-dd)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @Parameter(description = "End date (yyyy-MM-dd)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @Parameter(description = "Minimum amount") @RequestParam(required = false) BigDecimal minAmount,
+            @Parameter(description = "Maximum amount") @RequestParam(required = false) BigDecimal maxAmount,
+            @Parameter(description = "Export format (NDJSON/CSV)") @RequestParam(defaultValue = "NDJSON") HistoryExportFormat format) {
+
+        TransactionHistoryRequest request = TransactionHistoryRequest.builder()
+                .userId(userId)
+                .merchantId(merchantId)
+                .paymentTypeId(paymentTypeId)
+                .status(status)
+                .startDate(startDate)
+                .endDate(endDate)
+                .minAmount(minAmount)
+                .maxAmount(maxAmount)
+                .build();
+
+        StreamingResponseBody body = out -> reportService.exportTransactionHistory(request, format, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"transaction-history." + format.getFileExtension() + "\"")
+                .body(body);
+    }
+
     // ==================== DAILY REPORTS ====================
 
     @GetMapping("/daily")
@@ -134,6 +177,18 @@ public class TransactionReportController {
         return ResponseEntity.ok(ApiResponse.success("Last 30 days report retrieved successfully", reports));
     }
 
+    @PostMapping("/daily/rebuild")
+    @Operation(summary = "Rebuild daily rollups for a date range", 
+               description = "Recomputes the daily rollup rows behind the date-based reports from the transactions table")
+    public ResponseEntity<ApiResponse<Integer>> rebuildDailyRollups(
+            @Parameter(description = "Start date (yyyy-MM-dd)") 
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @Parameter(description = "End date (yyyy-MM-dd)") 
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        int corrected = rollupService.rebuild(startDate, endDate);
+        return ResponseEntity.ok(ApiResponse.success("Daily rollups rebuilt, " + corrected + " rows corrected", corrected));
+    }
+
     // ==================== MONTHLY REPORTS ====================
 
     @GetMapping("/monthly")
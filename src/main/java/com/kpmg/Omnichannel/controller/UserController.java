@@ -1,8 +1,10 @@
 package com.kpmg.omnichannel.controller;
 
 import com.kpmg.omnichannel.dto.ApiResponse;
+import com.kpmg.omnichannel.dto.PaginatedUserResponse;
 import com.kpmg.omnichannel.dto.UserRequest;
 import com.kpmg.omnichannel.dto.UserResponse;
+import com.kpmg.omnichannel.dto.UserSearchRequest;
 import com.kpmg.omnichannel.model.KycStatus;
 import com.kpmg.omnichannel.model.UserStatus;
 import com.kpmg.omnichannel.model.UserType;
@@ -11,9 +13,12 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.UUID;
@@ -40,6 +45,64 @@ public class UserController {
         return ResponseEntity.ok(ApiResponse.success("Users retrieved successfully", users));
     }
 
+    @GetMapping("/page")
+    @Operation(summary = "Get users page by page",
+               description = "Keyset-paginated user listing, oldest first, optionally filtered by type and status")
+    public ResponseEntity<ApiResponse<PaginatedUserResponse>> getUsersPage(
+            @Parameter(description = "User type to filter by") @RequestParam(required = false) UserType userType,
+            @Parameter(description = "Account status to filter by") @RequestParam(required = false) UserStatus status,
+            @Parameter(description = "Cursor from the previous page's nextCursor; omit for the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "20") Integer size) {
+        PaginatedUserResponse page = userService.searchUsers(UserSearchRequest.builder()
+                .userType(userType)
+                .status(status)
+                .cursor(cursor)
+                .size(size)
+                .build());
+        return ResponseEntity.ok(ApiResponse.success("Users retrieved successfully", page));
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search users",
+               description = "Finds users by email, phone or name prefix, keyset-paginated in email, phone or " +
+                       "name order respectively, and oldest first without a text filter")
+    public ResponseEntity<ApiResponse<PaginatedUserResponse>> searchUsers(
+            @Parameter(description = "Email prefix") @RequestParam(required = false) String email,
+            @Parameter(description = "Phone number prefix") @RequestParam(required = false) String phone,
+            @Parameter(description = "Last name prefix") @RequestParam(required = false) String lastName,
+            @Parameter(description = "First name prefix") @RequestParam(required = false) String firstName,
+            @Parameter(description = "User type to filter by") @RequestParam(required = false) UserType userType,
+            @Parameter(description = "Account status to filter by") @RequestParam(required = false) UserStatus status,
+            @Parameter(description = "Cursor from the previous page's nextCursor; omit for the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "20") Integer size) {
+        PaginatedUserResponse page = userService.searchUsers(UserSearchRequest.builder()
+                .email(email)
+                .phone(phone)
+                .lastName(lastName)
+                .firstName(firstName)
+                .userType(userType)
+                .status(status)
+                .cursor(cursor)
+                .size(size)
+                .build());
+        return ResponseEntity.ok(ApiResponse.success("Users retrieved successfully", page));
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Export users",
+               description = "Streams all users matching the filters, oldest first, as NDJSON")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @Parameter(description = "User type to filter by") @RequestParam(required = false) UserType userType,
+            @Parameter(description = "Account status to filter by") @RequestParam(required = false) UserStatus status) {
+        StreamingResponseBody body = out -> userService.exportUsers(userType, status, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users.ndjson\"")
+                .body(body);
+    }
+
     @GetMapping("/{userId}")
     public ResponseEntity<ApiResponse<UserResponse>> getUserById(@PathVariable UUID userId) {
         UserResponse user = userService.getUserById(userId);
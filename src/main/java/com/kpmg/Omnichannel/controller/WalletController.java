@@ -47,6 +47,25 @@ public class WalletController {
         return ResponseEntity.ok(ApiResponse.success("Wallet balance retrieved successfully", response));
     }
 
+    @GetMapping("/{userId}/ledger-balance")
+    @Operation(summary = "Get ledger balance",
+               description = "Get wallet balance alongside the balance materialized from the ledger")
+    public ResponseEntity<ApiResponse<WalletResponse>> getLedgerBalance(
+            @Parameter(description = "User ID") @PathVariable UUID userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        WalletResponse response = WalletResponse.builder()
+                .userId(userId)
+                .userName(user.getFirstName() + " " + user.getLastName())
+                .email(user.getEmail())
+                .walletBalance(walletService.getBalance(userId))
+                .ledgerBalance(walletService.getLedgerBalance(userId))
+                .build();
+
+        return ResponseEntity.ok(ApiResponse.success("Ledger balance retrieved successfully", response));
+    }
+
     @PostMapping("/{userId}/add-money")
     @Operation(summary = "Add money to wallet", 
                description = "Add money to user's wallet (for testing/top-up)")
@@ -56,7 +75,7 @@ public class WalletController {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
-        BigDecimal previousBalance = user.getWalletBalance();
+        BigDecimal previousBalance = walletService.getBalance(userId);
         BigDecimal newBalance = walletService.addMoney(userId, request.getAmount());
         
         WalletResponse response = WalletResponse.builder()
@@ -83,7 +102,7 @@ public class WalletController {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
-        BigDecimal previousBalance = user.getWalletBalance();
+        BigDecimal previousBalance = walletService.getBalance(userId);
         BigDecimal newBalance = walletService.deductMoney(userId, request.getAmount());
         
         WalletResponse response = WalletResponse.builder()
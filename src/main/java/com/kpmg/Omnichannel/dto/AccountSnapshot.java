@@ -0,0 +1,13 @@
+package com.kpmg.omnichannel.dto;
+
+import com.kpmg.omnichannel.model.KycStatus;
+import com.kpmg.omnichannel.model.UserStatus;
+import com.kpmg.omnichannel.model.UserType;
+
+import java.util.UUID;
+
+/**
+ * The account fields transaction pre-checks need, without the rest of the User entity
+ */
+public record AccountSnapshot(UUID userId, UserType userType, UserStatus status, KycStatus kycStatus) {
+}
@@ -0,0 +1,19 @@
+package com.kpmg.omnichannel.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchTransactionResponse {
+    private int total;
+    private int succeeded;
+    private int failed;
+    private List<BatchTransactionResult> results;
+}
@@ -0,0 +1,21 @@
+package com.kpmg.omnichannel.dto;
+
+import com.kpmg.omnichannel.model.TransactionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchTransactionResult {
+    private int index;
+    private boolean success;
+    private UUID transactionId;
+    private TransactionStatus status;
+    private String error;
+}
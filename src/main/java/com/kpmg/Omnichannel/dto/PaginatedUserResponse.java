@@ -0,0 +1,19 @@
+package com.kpmg.omnichannel.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginatedUserResponse {
+    private List<UserResponse> users;
+    private Integer pageSize;
+    private Boolean hasNext;
+    private String nextCursor;
+}
@@ -0,0 +1,24 @@
+package com.kpmg.omnichannel.dto;
+
+import com.kpmg.omnichannel.model.Channel;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * An immutable copy of a payment type, as shared between threads by the reference data cache
+ */
+public record PaymentTypeSnapshot(UUID paymentTypeId, String name, String enabledChannels, Boolean isActive,
+                                  Set<Channel> channels) {
+
+    public PaymentTypeSnapshot {
+        channels = Set.copyOf(channels);
+    }
+
+    /**
+     * Whether the payment type may be used on the given channel
+     */
+    public boolean isEnabledFor(Channel channel) {
+        return channels.contains(channel);
+    }
+}
@@ -0,0 +1,19 @@
+package com.kpmg.omnichannel.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReferenceDataCacheMetricsResponse {
+    private int paymentTypes;
+    private int roles;
+    private long paymentTypeHits;
+    private long paymentTypeMisses;
+    private long roleHits;
+    private long roleMisses;
+}
@@ -0,0 +1,9 @@
+package com.kpmg.omnichannel.dto;
+
+import java.util.UUID;
+
+/**
+ * An immutable copy of a role's own fields, as shared between threads by the reference data cache
+ */
+public record RoleSnapshot(UUID roleId, String name, String description) {
+}
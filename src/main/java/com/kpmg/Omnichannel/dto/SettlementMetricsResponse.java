@@ -0,0 +1,23 @@
+package com.kpmg.omnichannel.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SettlementMetricsResponse {
+    private int queueDepth;
+    private int queueCapacity;
+    private int workers;
+    private long settledTransactions;
+    private long failedTransactions;
+    private long batches;
+    private long lastBatchSize;
+    private long lastLagMillis;
+    private long maxLagMillis;
+    private long oldestQueuedMillis;
+}
@@ -1,5 +1,6 @@
 package com.kpmg.omnichannel.dto;
 
+import com.kpmg.omnichannel.model.Channel;
 import lombok.Data;
 
 import java.math.BigDecimal;
@@ -12,4 +13,6 @@ public class TransactionRequest {
     private UUID paymentTypeId;
     private BigDecimal amount;
     private String currency;
+    // Optional; when absent the payment type is not checked, unless omnichannel.transactions.default-channel is set
+    private Channel channel;
 }
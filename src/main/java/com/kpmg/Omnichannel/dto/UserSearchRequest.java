@@ -0,0 +1,26 @@
+package com.kpmg.omnichannel.dto;
+
+import com.kpmg.omnichannel.model.UserStatus;
+import com.kpmg.omnichannel.model.UserType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * User listing filters; email, phone and names match as case-sensitive prefixes
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSearchRequest {
+    private String email;
+    private String phone;
+    private String lastName;
+    private String firstName;
+    private UserType userType;
+    private UserStatus status;
+    private String cursor;
+    private Integer size;
+}
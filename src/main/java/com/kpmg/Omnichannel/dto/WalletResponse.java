@@ -17,6 +17,7 @@ public class WalletResponse {
     private String userName;
     private String email;
     private BigDecimal walletBalance;
+    private BigDecimal ledgerBalance;
     private BigDecimal previousBalance;
     private BigDecimal amountChanged;
     private String operation;
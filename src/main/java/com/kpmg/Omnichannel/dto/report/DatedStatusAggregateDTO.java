@@ -0,0 +1,26 @@
+package com.kpmg.omnichannel.dto.report;
+
+import com.kpmg.omnichannel.model.TransactionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One row of a GROUP BY date, status aggregate (count, sum)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DatedStatusAggregateDTO {
+    private LocalDate date;
+    private TransactionStatus status;
+    private Long count;
+    private BigDecimal totalAmount;
+
+    public StatusAggregateDTO toStatusAggregate() {
+        return new StatusAggregateDTO(status, count, totalAmount);
+    }
+}
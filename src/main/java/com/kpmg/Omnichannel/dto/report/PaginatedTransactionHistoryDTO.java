@@ -19,5 +19,6 @@ public class PaginatedTransactionHistoryDTO {
     private Integer pageSize;
     private Boolean hasNext;
     private Boolean hasPrevious;
+    private String nextCursor;
 }
 
@@ -0,0 +1,28 @@
+package com.kpmg.omnichannel.dto.report;
+
+import com.kpmg.omnichannel.model.TransactionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * One row of a GROUP BY payment type, status aggregate (count, sum).
+ * Status is null for a payment type without any transactions.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentTypeStatusAggregateDTO {
+    private UUID paymentTypeId;
+    private String paymentTypeName;
+    private TransactionStatus status;
+    private Long count;
+    private BigDecimal totalAmount;
+
+    public StatusAggregateDTO toStatusAggregate() {
+        return new StatusAggregateDTO(status, count, totalAmount);
+    }
+}
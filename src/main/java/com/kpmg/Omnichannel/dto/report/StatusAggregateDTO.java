@@ -0,0 +1,26 @@
+package com.kpmg.omnichannel.dto.report;
+
+import com.kpmg.omnichannel.model.TransactionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * One row of a GROUP BY status aggregate (count, sum, min, max)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatusAggregateDTO {
+    private TransactionStatus status;
+    private Long count;
+    private BigDecimal totalAmount;
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+
+    public StatusAggregateDTO(TransactionStatus status, Long count, BigDecimal totalAmount) {
+        this(status, count, totalAmount, null, null);
+    }
+}
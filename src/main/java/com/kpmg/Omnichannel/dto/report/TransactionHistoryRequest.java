@@ -28,5 +28,8 @@ public class TransactionHistoryRequest {
     private Integer size;
     private String sortBy;
     private String sortDirection;
+    // Keyset paging: opaque cursor from the previous page, empty for the first page
+    private String cursor;
+    private Boolean includeTotal;
 }
 
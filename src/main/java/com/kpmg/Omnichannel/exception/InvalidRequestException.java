@@ -0,0 +1,10 @@
+package com.kpmg.omnichannel.exception;
+
+/**
+ * A request value supplied by the client is malformed or out of bounds; reported as 400
+ */
+public class InvalidRequestException extends RuntimeException {
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.kpmg.omnichannel.exception;
+
+public class InvalidTransactionStateException extends RuntimeException {
+    public InvalidTransactionStateException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,68 @@
+package com.kpmg.omnichannel.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.kpmg.omnichannel.exception.InvalidRequestException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+
+@Slf4j
+public enum Channel {
+    WEB,
+    MOBILE,
+    POS,
+    IVR,
+    ATM;
+
+    @JsonCreator
+    public static Channel from(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Unknown channel: " + value);
+        }
+    }
+
+    @JsonValue
+    public String toValue() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Parse a stored channel list, either a JSON array ["mobile","web"] or a plain "mobile,web".
+     * Unknown tokens are logged and skipped, so one bad row can never break loading.
+     */
+    public static EnumSet<Channel> parseAll(String channels) {
+        EnumSet<Channel> parsed = EnumSet.noneOf(Channel.class);
+        for (String token : tokens(channels)) {
+            try {
+                parsed.add(from(token));
+            } catch (InvalidRequestException e) {
+                log.warn("Ignoring unknown channel '{}' in channel list {}", token, channels);
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * Check a channel list supplied by a client
+     *
+     * @throws InvalidRequestException naming the first unknown channel
+     */
+    public static void validateAll(String channels) {
+        tokens(channels).forEach(Channel::from);
+    }
+
+    private static List<String> tokens(String channels) {
+        if (channels == null) {
+            return List.of();
+        }
+        return Arrays.stream(channels.split("[\\[\\]\\\\\",\\s]+"))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+}
@@ -0,0 +1,42 @@
+package com.kpmg.omnichannel.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "ledger_entries",
+        indexes = @Index(name = "idx_ledger_entries_user_created", columnList = "user_id, created_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(name = "entry_id", updatable = false, nullable = false)
+    private UUID entryId;
+
+    @Column(name = "transaction_id", updatable = false)
+    private UUID transactionId;
+
+    @Column(name = "user_id", updatable = false, nullable = false)
+    private UUID userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_type", updatable = false, nullable = false)
+    private LedgerEntryType entryType;
+
+    @Column(name = "amount", updatable = false, nullable = false, precision = 18, scale = 2)
+    private BigDecimal amount;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,7 @@
+package com.kpmg.omnichannel.model;
+
+public enum LedgerEntryType {
+    DEBIT, CREDIT,
+    // Balance a wallet held before the ledger existed; the amount is signed
+    OPENING
+}
@@ -0,0 +1,33 @@
+package com.kpmg.omnichannel.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "ledger_snapshots")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerSnapshot {
+
+    @Id
+    @Column(name = "user_id", updatable = false, nullable = false)
+    private UUID userId;
+
+    @Column(name = "balance", nullable = false, precision = 18, scale = 2)
+    private BigDecimal balance = BigDecimal.ZERO;
+
+    // Every ledger entry created before this instant and committed when the snapshot was taken is included in balance
+    @Column(name = "as_of", nullable = false)
+    private LocalDateTime asOf;
+
+    // Signed sum of the entries in the overlap window ending at asOf, as seen when the snapshot was taken
+    @Column(name = "overlap_balance", nullable = false, precision = 18, scale = 2)
+    private BigDecimal overlapBalance = BigDecimal.ZERO;
+}
@@ -1,17 +1,20 @@
 package com.kpmg.omnichannel.model;
 
 import jakarta.persistence.*;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
+import java.util.EnumSet;
 import java.util.UUID;
 
 @Entity
 @Table(name = "payment_types")
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class PaymentType {
 
     @Id
@@ -27,4 +30,37 @@ public class PaymentType {
 
     @Column(name = "is_active", nullable = false)
     private Boolean isActive = true;
+
+    // Parsed form of enabledChannels, kept in step by the setter and on load
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient EnumSet<Channel> channels = EnumSet.allOf(Channel.class);
+
+    public PaymentType(UUID paymentTypeId, String name, String enabledChannels, Boolean isActive) {
+        this.paymentTypeId = paymentTypeId;
+        this.name = name;
+        this.isActive = isActive;
+        setEnabledChannels(enabledChannels);
+    }
+
+    public void setEnabledChannels(String enabledChannels) {
+        this.enabledChannels = enabledChannels;
+        parseChannels();
+    }
+
+    /**
+     * Whether this payment type may be used on the given channel; a payment type with no
+     * channel list configured is enabled on every channel
+     */
+    public boolean isEnabledFor(Channel channel) {
+        return channels.contains(channel);
+    }
+
+    @PostLoad
+    private void parseChannels() {
+        channels = enabledChannels == null || enabledChannels.isBlank()
+                ? EnumSet.allOf(Channel.class)
+                : Channel.parseAll(enabledChannels);
+    }
 }
@@ -12,7 +12,18 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions",
+        uniqueConstraints = @UniqueConstraint(name = "uk_transactions_user_idempotency_key",
+                columnNames = {"user_id", "idempotency_key"}),
+        // One index per report access path; the unique key above also serves plain user_id lookups
+        indexes = {
+                @Index(name = "idx_transactions_created_at_id", columnList = "created_at, transaction_id"),
+                @Index(name = "idx_transactions_user_created", columnList = "user_id, created_at, transaction_id"),
+                @Index(name = "idx_transactions_merchant_created", columnList = "merchant_id, created_at, transaction_id"),
+                @Index(name = "idx_transactions_user_status", columnList = "user_id, status"),
+                @Index(name = "idx_transactions_status_created", columnList = "status, created_at"),
+                @Index(name = "idx_transactions_payment_type_status", columnList = "payment_type_id, status")
+        })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -45,6 +56,18 @@ public class Transaction {
     @Column(name = "status", nullable = false)
     private TransactionStatus status;
 
+    // Client-supplied Idempotency-Key, unique per user
+    @Column(name = "idempotency_key", length = 100, updatable = false)
+    private String idempotencyKey;
+
+    // Set when SUCCESS is requested; the transaction stays PROCESSING until settlement completes
+    @Column(name = "settlement_requested_at")
+    private LocalDateTime settlementRequestedAt;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version = 0L;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
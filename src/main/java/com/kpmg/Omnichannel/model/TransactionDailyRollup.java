@@ -0,0 +1,44 @@
+package com.kpmg.omnichannel.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Entity
+@Table(name = "transaction_daily_rollup",
+        uniqueConstraints = @UniqueConstraint(name = "uk_transaction_daily_rollup_key",
+                columnNames = {"rollup_date", "status", "payment_type_id", "currency"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionDailyRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(name = "rollup_id", updatable = false, nullable = false)
+    private UUID rollupId;
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate rollupDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private TransactionStatus status;
+
+    @Column(name = "payment_type_id", nullable = false)
+    private UUID paymentTypeId;
+
+    @Column(name = "currency", length = 10, nullable = false)
+    private String currency;
+
+    @Column(name = "transaction_count", nullable = false)
+    private Long transactionCount = 0L;
+
+    @Column(name = "total_amount", nullable = false, precision = 18, scale = 2)
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+}
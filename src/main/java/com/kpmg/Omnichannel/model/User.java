@@ -3,7 +3,9 @@ package com.kpmg.omnichannel.model;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -14,12 +16,25 @@ import java.util.Set;
 import java.util.UUID;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_created_at_id", columnList = "created_at, user_id"),
+        @Index(name = "idx_users_phone", columnList = "phone"),
+        @Index(name = "idx_users_name", columnList = "last_name, first_name"),
+        @Index(name = "idx_users_type_status", columnList = "user_type, status")
+})
+@NamedEntityGraph(name = User.WITH_ROLES,
+        attributeNodes = @NamedAttributeNode(value = "userRoles", subgraph = "userRoles"),
+        subgraphs = @NamedSubgraph(name = "userRoles", attributeNodes = @NamedAttributeNode("role")))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class User {
 
+    /**
+     * Fetch plan for rendering a user with role names: roles and their Role rows are joined in
+     */
+    public static final String WITH_ROLES = "User.withRoles";
+
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     @Column(name = "user_id", updatable = false, nullable = false)
@@ -60,7 +75,11 @@ public class User {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
-    @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    // Excluded so hashing a UserRole while the set is being loaded does not recurse back into it.
+    // Lazy: only loaders that render roles ask for them, through the WITH_ROLES graph.
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<UserRole> userRoles = new HashSet<>();
 
     // Explicit getter and setter for walletBalance
@@ -0,0 +1,33 @@
+package com.kpmg.omnichannel.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Entity
+@Table(name = "wallet_balance_shards",
+        uniqueConstraints = @UniqueConstraint(name = "uk_wallet_balance_shard",
+                columnNames = {"user_id", "shard_no"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletBalanceShard {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(name = "shard_id", updatable = false, nullable = false)
+    private UUID shardId;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "shard_no", nullable = false)
+    private Integer shardNo;
+
+    @Column(name = "balance", precision = 18, scale = 2, nullable = false)
+    private BigDecimal balance = BigDecimal.ZERO;
+}
@@ -0,0 +1,54 @@
+package com.kpmg.omnichannel.repository;
+
+import com.kpmg.omnichannel.model.LedgerEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, UUID> {
+
+    List<LedgerEntry> findByTransactionId(UUID transactionId);
+
+    @Query("SELECT e FROM LedgerEntry e WHERE e.userId = :userId ORDER BY e.createdAt DESC")
+    List<LedgerEntry> findRecentByUserId(@Param("userId") UUID userId, Pageable pageable);
+
+    // Signed sum (credits and openings minus debits) of a user's entries from the given instant onwards (snapshot delta replay)
+    @Query("SELECT COALESCE(SUM(CASE WHEN e.entryType = com.kpmg.omnichannel.model.LedgerEntryType.DEBIT " +
+           "THEN -e.amount ELSE e.amount END), 0) FROM LedgerEntry e " +
+           "WHERE e.userId = :userId AND e.createdAt >= :from")
+    BigDecimal sumSignedAmountSince(@Param("userId") UUID userId, @Param("from") LocalDateTime from);
+
+    // Signed sum of a user's entries in [from, to), and of the part of them created at or after overlapFrom,
+    // read in one statement so both see the same committed entries
+    @Query("SELECT COALESCE(SUM(CASE WHEN e.entryType = com.kpmg.omnichannel.model.LedgerEntryType.DEBIT " +
+           "THEN -e.amount ELSE e.amount END), 0), " +
+           "COALESCE(SUM(CASE WHEN e.createdAt < :overlapFrom THEN 0 " +
+           "WHEN e.entryType = com.kpmg.omnichannel.model.LedgerEntryType.DEBIT THEN -e.amount ELSE e.amount END), 0) " +
+           "FROM LedgerEntry e WHERE e.userId = :userId AND e.createdAt >= :from AND e.createdAt < :to")
+    List<Object[]> sumSignedAmountWithOverlap(@Param("userId") UUID userId,
+                                              @Param("from") LocalDateTime from,
+                                              @Param("to") LocalDateTime to,
+                                              @Param("overlapFrom") LocalDateTime overlapFrom);
+
+    @Query("SELECT DISTINCT e.userId FROM LedgerEntry e WHERE e.createdAt >= :from AND e.createdAt < :to")
+    List<UUID> findUserIdsWithEntriesBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Users after :afterUserId (null for the first page) without an opening entry, with their wallet balance (including shards) minus their
+    // ledger balance, in user id order; wallet and ledger are read in one statement so they agree on committed transfers
+    @Query("SELECT u.userId, u.walletBalance " +
+           "+ COALESCE((SELECT SUM(s.balance) FROM WalletBalanceShard s WHERE s.userId = u.userId), 0) " +
+           "- COALESCE((SELECT SUM(CASE WHEN e.entryType = com.kpmg.omnichannel.model.LedgerEntryType.DEBIT " +
+           "THEN -e.amount ELSE e.amount END) FROM LedgerEntry e WHERE e.userId = u.userId), 0) " +
+           "FROM User u WHERE (:afterUserId IS NULL OR u.userId > :afterUserId) AND NOT EXISTS (SELECT o FROM LedgerEntry o " +
+           "WHERE o.userId = u.userId AND o.entryType = com.kpmg.omnichannel.model.LedgerEntryType.OPENING) " +
+           "ORDER BY u.userId")
+    List<Object[]> findUnrecordedOpeningBalances(@Param("afterUserId") UUID afterUserId, Pageable pageable);
+}
@@ -0,0 +1,24 @@
+package com.kpmg.omnichannel.repository;
+
+import com.kpmg.omnichannel.model.LedgerSnapshot;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface LedgerSnapshotRepository extends JpaRepository<LedgerSnapshot, UUID> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM LedgerSnapshot s WHERE s.userId = :userId")
+    Optional<LedgerSnapshot> findByUserIdForUpdate(@Param("userId") UUID userId);
+
+    @Query("SELECT MAX(s.asOf) FROM LedgerSnapshot s")
+    Optional<LocalDateTime> findLatestAsOf();
+}
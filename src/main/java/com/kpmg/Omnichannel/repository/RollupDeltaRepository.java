@@ -0,0 +1,17 @@
+package com.kpmg.omnichannel.repository;
+
+import com.kpmg.omnichannel.model.TransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Single-statement rollup maintenance in the caller's transaction: the row for the key is
+ * created if missing and the delta added to it, without a separate existence check or insert.
+ */
+public interface RollupDeltaRepository {
+
+    void upsertDelta(LocalDate rollupDate, TransactionStatus status, UUID paymentTypeId, String currency,
+                     long countDelta, BigDecimal amountDelta);
+}
@@ -0,0 +1,63 @@
+package com.kpmg.omnichannel.repository;
+
+import com.kpmg.omnichannel.model.TransactionStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+public class RollupDeltaRepositoryImpl implements RollupDeltaRepository {
+
+    // H2 (and standard SQL): MERGE with an additive WHEN MATCHED branch
+    private static final String MERGE =
+            "MERGE INTO transaction_daily_rollup r " +
+            "USING (VALUES (CAST(:rollupDate AS DATE), CAST(:status AS VARCHAR(20)), CAST(:paymentTypeId AS UUID), " +
+            "CAST(:currency AS VARCHAR(10)))) s (rollup_date, status, payment_type_id, currency) " +
+            "ON r.rollup_date = s.rollup_date AND r.status = s.status " +
+            "AND r.payment_type_id = s.payment_type_id AND r.currency = s.currency " +
+            "WHEN MATCHED THEN UPDATE SET transaction_count = r.transaction_count + :countDelta, " +
+            "total_amount = r.total_amount + :amountDelta " +
+            "WHEN NOT MATCHED THEN INSERT (rollup_id, rollup_date, status, payment_type_id, currency, " +
+            "transaction_count, total_amount) " +
+            "VALUES (:rollupId, s.rollup_date, s.status, s.payment_type_id, s.currency, :countDelta, :amountDelta)";
+
+    // MySQL: the unique rollup key turns the insert into an in-place increment
+    private static final String ON_DUPLICATE_KEY =
+            "INSERT INTO transaction_daily_rollup (rollup_id, rollup_date, status, payment_type_id, currency, " +
+            "transaction_count, total_amount) " +
+            "VALUES (:rollupId, :rollupDate, :status, :paymentTypeId, :currency, :countDelta, :amountDelta) " +
+            "ON DUPLICATE KEY UPDATE transaction_count = transaction_count + VALUES(transaction_count), " +
+            "total_amount = total_amount + VALUES(total_amount)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile String upsertSql;
+
+    @Override
+    public void upsertDelta(LocalDate rollupDate, TransactionStatus status, UUID paymentTypeId, String currency,
+                            long countDelta, BigDecimal amountDelta) {
+        entityManager.createNativeQuery(upsertSql())
+                .setParameter("rollupId", UUID.randomUUID())
+                .setParameter("rollupDate", rollupDate)
+                .setParameter("status", status.name())
+                .setParameter("paymentTypeId", paymentTypeId)
+                .setParameter("currency", currency)
+                .setParameter("countDelta", countDelta)
+                .setParameter("amountDelta", amountDelta)
+                .executeUpdate();
+    }
+
+    private String upsertSql() {
+        if (upsertSql == null) {
+            boolean mysql = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                    .getJdbcServices().getDialect() instanceof MySQLDialect;
+            upsertSql = mysql ? ON_DUPLICATE_KEY : MERGE;
+        }
+        return upsertSql;
+    }
+}
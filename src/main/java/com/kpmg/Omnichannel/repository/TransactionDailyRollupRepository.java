@@ -0,0 +1,79 @@
+package com.kpmg.omnichannel.repository;
+
+import com.kpmg.omnichannel.dto.report.DatedStatusAggregateDTO;
+import com.kpmg.omnichannel.dto.report.PaymentTypeStatusAggregateDTO;
+import com.kpmg.omnichannel.dto.report.StatusAggregateDTO;
+import com.kpmg.omnichannel.model.TransactionDailyRollup;
+import com.kpmg.omnichannel.model.TransactionStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface TransactionDailyRollupRepository extends JpaRepository<TransactionDailyRollup, UUID>, RollupDeltaRepository {
+
+    // Date range aggregates for reports
+    @Query("SELECT new com.kpmg.omnichannel.dto.report.StatusAggregateDTO(" +
+           "r.status, SUM(r.transactionCount), SUM(r.totalAmount)) " +
+           "FROM TransactionDailyRollup r WHERE r.rollupDate BETWEEN :startDate AND :endDate GROUP BY r.status")
+    List<StatusAggregateDTO> aggregateByStatusAndDateRange(@Param("startDate") LocalDate startDate,
+                                                            @Param("endDate") LocalDate endDate);
+
+    // Bucketed aggregates: one row per (date, status) over the whole range
+    @Query("SELECT new com.kpmg.omnichannel.dto.report.DatedStatusAggregateDTO(" +
+           "r.rollupDate, r.status, SUM(r.transactionCount), SUM(r.totalAmount)) " +
+           "FROM TransactionDailyRollup r WHERE r.rollupDate BETWEEN :startDate AND :endDate " +
+           "GROUP BY r.rollupDate, r.status")
+    List<DatedStatusAggregateDTO> aggregateByDateAndStatus(@Param("startDate") LocalDate startDate,
+                                                            @Param("endDate") LocalDate endDate);
+
+    // Per payment type and status over all rollups; payment types without transactions yield one row with a null status
+    @Query("SELECT new com.kpmg.omnichannel.dto.report.PaymentTypeStatusAggregateDTO(" +
+           "p.paymentTypeId, p.name, r.status, SUM(r.transactionCount), SUM(r.totalAmount)) " +
+           "FROM PaymentType p LEFT JOIN TransactionDailyRollup r ON r.paymentTypeId = p.paymentTypeId " +
+           "GROUP BY p.paymentTypeId, p.name, r.status")
+    List<PaymentTypeStatusAggregateDTO> aggregateByPaymentTypeAndStatus();
+
+    // The same aggregate for a single payment type; no rows when the payment type does not exist
+    @Query("SELECT new com.kpmg.omnichannel.dto.report.PaymentTypeStatusAggregateDTO(" +
+           "p.paymentTypeId, p.name, r.status, SUM(r.transactionCount), SUM(r.totalAmount)) " +
+           "FROM PaymentType p LEFT JOIN TransactionDailyRollup r ON r.paymentTypeId = p.paymentTypeId " +
+           "WHERE p.paymentTypeId = :paymentTypeId " +
+           "GROUP BY p.paymentTypeId, p.name, r.status")
+    List<PaymentTypeStatusAggregateDTO> aggregateByPaymentTypeAndStatus(@Param("paymentTypeId") UUID paymentTypeId);
+
+    // Transactions over all existing payment types, the denominator of payment type usage percentages
+    @Query("SELECT COALESCE(SUM(r.transactionCount), 0) FROM TransactionDailyRollup r " +
+           "JOIN PaymentType p ON r.paymentTypeId = p.paymentTypeId")
+    long sumTransactionCountOfPaymentTypes();
+
+    // Rebuild rollups from the fact table: rollup date, status, payment type, currency, count, amount
+    @Query("SELECT CAST(t.createdAt AS LocalDate), t.status, t.paymentType.paymentTypeId, t.currency, " +
+           "COUNT(t), SUM(t.amount) FROM Transaction t " +
+           "GROUP BY CAST(t.createdAt AS LocalDate), t.status, t.paymentType.paymentTypeId, t.currency")
+    List<Object[]> aggregateTransactionsByRollupKey();
+
+    // The same aggregate restricted to transactions created on or after :start and before :end
+    @Query("SELECT CAST(t.createdAt AS LocalDate), t.status, t.paymentType.paymentTypeId, t.currency, " +
+           "COUNT(t), SUM(t.amount) FROM Transaction t WHERE t.createdAt >= :start AND t.createdAt < :end " +
+           "GROUP BY CAST(t.createdAt AS LocalDate), t.status, t.paymentType.paymentTypeId, t.currency")
+    List<Object[]> aggregateTransactionsByRollupKey(@Param("start") LocalDateTime start,
+                                                    @Param("end") LocalDateTime end);
+
+    List<TransactionDailyRollup> findByRollupDateBetween(LocalDate startDate, LocalDate endDate);
+
+    // Locks the range's rows in the order rollup writers upsert them, so neither side can deadlock the other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM TransactionDailyRollup r WHERE r.rollupDate BETWEEN :startDate AND :endDate " +
+           "ORDER BY r.rollupDate, r.status, r.paymentTypeId, r.currency")
+    List<TransactionDailyRollup> findByRollupDateBetweenForUpdate(@Param("startDate") LocalDate startDate,
+                                                                 @Param("endDate") LocalDate endDate);
+}
@@ -0,0 +1,26 @@
+package com.kpmg.omnichannel.repository;
+
+import com.kpmg.omnichannel.dto.report.TransactionHistoryDTO;
+import com.kpmg.omnichannel.model.Transaction;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.function.Consumer;
+
+/**
+ * History queries that select {@link TransactionHistoryDTO} rows directly, joining user,
+ * merchant and payment type in the same statement instead of loading entities.
+ */
+public interface TransactionHistoryRepository {
+
+    Page<TransactionHistoryDTO> findHistoryPage(Specification<Transaction> spec, Pageable pageable);
+
+    // Fetches one row beyond the page size to tell whether a next page exists, never counts
+    Slice<TransactionHistoryDTO> findHistorySlice(Specification<Transaction> spec, Pageable pageable);
+
+    // Streams every matching row through a forward-only cursor; must run inside a transaction
+    void scrollHistory(Specification<Transaction> spec, Sort sort, int fetchSize, Consumer<TransactionHistoryDTO> action);
+}
@@ -0,0 +1,116 @@
+package com.kpmg.omnichannel.repository;
+
+import com.kpmg.omnichannel.dto.report.TransactionHistoryDTO;
+import com.kpmg.omnichannel.model.PaymentType;
+import com.kpmg.omnichannel.model.Transaction;
+import com.kpmg.omnichannel.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public class TransactionHistoryRepositoryImpl implements TransactionHistoryRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<TransactionHistoryDTO> findHistoryPage(Specification<Transaction> spec, Pageable pageable) {
+        List<TransactionHistoryDTO> content = findHistory(spec, pageable, pageable.getPageSize());
+        // The count is skipped when the page itself shows where the result ends
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(spec));
+    }
+
+    @Override
+    public Slice<TransactionHistoryDTO> findHistorySlice(Specification<Transaction> spec, Pageable pageable) {
+        List<TransactionHistoryDTO> content = findHistory(spec, pageable, pageable.getPageSize() + 1);
+        boolean hasNext = content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void scrollHistory(Specification<Transaction> spec, Sort sort, int fetchSize,
+                              Consumer<TransactionHistoryDTO> action) {
+        Query<TransactionHistoryDTO> query = entityManager.createQuery(historyQuery(spec, sort)).unwrap(Query.class);
+        try (ScrollableResults<TransactionHistoryDTO> results = query
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            long rows = 0;
+            while (results.next()) {
+                action.accept(results.get());
+                // Rows are DTOs, but clearing keeps anything loaded along the way from accumulating
+                if (++rows % fetchSize == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
+    private List<TransactionHistoryDTO> findHistory(Specification<Transaction> spec, Pageable pageable, int limit) {
+        return entityManager.createQuery(historyQuery(spec, pageable.getSort()))
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private CriteriaQuery<TransactionHistoryDTO> historyQuery(Specification<Transaction> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TransactionHistoryDTO> query = cb.createQuery(TransactionHistoryDTO.class);
+        Root<Transaction> root = query.from(Transaction.class);
+        Join<Transaction, User> user = root.join("user");
+        Join<Transaction, User> merchant = root.join("merchant");
+        Join<Transaction, PaymentType> paymentType = root.join("paymentType");
+
+        query.select(cb.construct(TransactionHistoryDTO.class,
+                root.get("transactionId"),
+                fullName(cb, user),
+                fullName(cb, merchant),
+                paymentType.get("name"),
+                root.get("amount"),
+                root.get("currency"),
+                root.get("status"),
+                root.get("createdAt")));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        return query;
+    }
+
+    private long count(Specification<Transaction> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Transaction> root = query.from(Transaction.class);
+        query.select(cb.count(root));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static Expression<String> fullName(CriteriaBuilder cb, Join<Transaction, User> user) {
+        return cb.concat(cb.concat(user.get("firstName"), " "), user.get("lastName"));
+    }
+}
@@ -1,27 +1,75 @@
 package com.kpmg.omnichannel.repository;
 
+import com.kpmg.omnichannel.dto.report.PaymentTypeStatusAggregateDTO;
+import com.kpmg.omnichannel.dto.report.StatusAggregateDTO;
+import com.kpmg.omnichannel.dto.report.TransactionHistoryDTO;
 import com.kpmg.omnichannel.model.Transaction;
 import com.kpmg.omnichannel.model.TransactionStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, UUID>, JpaSpecificationExecutor<Transaction> {
+public interface TransactionRepository extends JpaRepository<Transaction, UUID>, JpaSpecificationExecutor<Transaction>,
+        TransactionHistoryRepository {
     
     // Find by user
     List<Transaction> findByUserUserId(UUID userId);
     Page<Transaction> findByUserUserId(UUID userId, Pageable pageable);
     
+    Optional<Transaction> findByUserUserIdAndIdempotencyKey(UUID userId, String idempotencyKey);
+
+    // Compare-and-set status transitions, see TransactionStateMachine
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Transaction t SET t.status = :next, t.version = t.version + 1, t.updatedAt = :now " +
+           "WHERE t.transactionId = :id AND t.status = :expected")
+    int compareAndSetStatus(@Param("id") UUID id,
+                            @Param("expected") TransactionStatus expected,
+                            @Param("next") TransactionStatus next,
+                            @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Transaction t SET t.status = com.kpmg.omnichannel.model.TransactionStatus.PROCESSING, " +
+           "t.settlementRequestedAt = :now, t.version = t.version + 1, t.updatedAt = :now " +
+           "WHERE t.transactionId = :id AND t.status = :expected AND t.settlementRequestedAt IS NULL")
+    int requestSettlement(@Param("id") UUID id,
+                          @Param("expected") TransactionStatus expected,
+                          @Param("now") LocalDateTime now);
+
+    // Clearing settlement_requested_at marks the transaction as taken by a settlement worker
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Transaction t SET t.settlementRequestedAt = NULL, t.version = t.version + 1, t.updatedAt = :now " +
+           "WHERE t.transactionId = :id AND t.status = com.kpmg.omnichannel.model.TransactionStatus.PROCESSING " +
+           "AND t.settlementRequestedAt IS NOT NULL")
+    int claimSettlement(@Param("id") UUID id, @Param("now") LocalDateTime now);
+
+    // Transactions waiting for settlement since before the cutoff
+    @Query("SELECT t.transactionId FROM Transaction t WHERE t.status = com.kpmg.omnichannel.model.TransactionStatus.PROCESSING " +
+           "AND t.settlementRequestedAt <= :cutoff ORDER BY t.settlementRequestedAt")
+    List<UUID> findSettlementBacklog(@Param("cutoff") LocalDateTime cutoff);
+    
+    // Spend windows: (userId, paymentTypeId, createdAt, amount) of recent transactions, streamed in fetch-size chunks
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT t.user.userId, t.paymentType.paymentTypeId, t.createdAt, t.amount FROM Transaction t " +
+           "WHERE t.createdAt >= :since AND t.status <> :excludedStatus")
+    Stream<Object[]> streamSpendSince(@Param("since") LocalDateTime since,
+                                      @Param("excludedStatus") TransactionStatus excludedStatus);
+
     // Find by merchant
     List<Transaction> findByMerchantUserId(UUID merchantId);
     Page<Transaction> findByMerchantUserId(UUID merchantId, Pageable pageable);
@@ -68,6 +116,18 @@ public interface TransactionRepository extends JpaRepository<Transaction, UUID>,
     @Query("SELECT COALESCE(MIN(t.amount), 0) FROM Transaction t WHERE t.amount > 0")
     BigDecimal minAmount();
     
+    // Grouped aggregates: count, sum, min and max per status in a single scan
+    @Query("SELECT new com.kpmg.omnichannel.dto.report.StatusAggregateDTO(" +
+           "t.status, COUNT(t), SUM(t.amount), MIN(CASE WHEN t.amount > 0 THEN t.amount ELSE NULL END), MAX(t.amount)) " +
+           "FROM Transaction t GROUP BY t.status")
+    List<StatusAggregateDTO> aggregateByStatus();
+
+    @Query("SELECT new com.kpmg.omnichannel.dto.report.StatusAggregateDTO(" +
+           "t.status, COUNT(t), SUM(t.amount), MIN(CASE WHEN t.amount > 0 THEN t.amount ELSE NULL END), MAX(t.amount)) " +
+           "FROM Transaction t WHERE t.createdAt BETWEEN :startDate AND :endDate GROUP BY t.status")
+    List<StatusAggregateDTO> aggregateByStatusAndDateRange(@Param("startDate") LocalDateTime startDate,
+                                                            @Param("endDate") LocalDateTime endDate);
+    
     // Date range queries for reports
     @Query("SELECT COUNT(t) FROM Transaction t WHERE t.createdAt BETWEEN :startDate AND :endDate")
     Long countByDateRange(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
@@ -112,27 +172,26 @@ public interface TransactionRepository extends JpaRepository<Transaction, UUID>,
                                               @Param("startDate") LocalDateTime startDate, 
                                               @Param("endDate") LocalDateTime endDate);
     
+    // History rows projected in one joined select, see TransactionHistoryRepository for filtered pages
+    @Query("SELECT new com.kpmg.omnichannel.dto.report.TransactionHistoryDTO(" +
+           "t.transactionId, CONCAT(u.firstName, ' ', u.lastName), CONCAT(m.firstName, ' ', m.lastName), " +
+           "p.name, t.amount, t.currency, t.status, t.createdAt) " +
+           "FROM Transaction t JOIN t.user u JOIN t.merchant m JOIN t.paymentType p " +
+           "ORDER BY t.createdAt DESC, t.transactionId DESC")
+    List<TransactionHistoryDTO> findAllHistory();
+
     // Get recent transactions for user
-    @Query("SELECT t FROM Transaction t WHERE t.user.userId = :userId ORDER BY t.createdAt DESC")
-    List<Transaction> findRecentByUserId(@Param("userId") UUID userId, Pageable pageable);
-    
-    // Get transactions by multiple filters
-    @Query("SELECT t FROM Transaction t WHERE " +
-           "(:userId IS NULL OR t.user.userId = :userId) AND " +
-           "(:merchantId IS NULL OR t.merchant.userId = :merchantId) AND " +
-           "(:paymentTypeId IS NULL OR t.paymentType.paymentTypeId = :paymentTypeId) AND " +
-           "(:status IS NULL OR t.status = :status) AND " +
-           "(:startDate IS NULL OR t.createdAt >= :startDate) AND " +
-           "(:endDate IS NULL OR t.createdAt <= :endDate) AND " +
-           "(:minAmount IS NULL OR t.amount >= :minAmount) AND " +
-           "(:maxAmount IS NULL OR t.amount <= :maxAmount)")
-    Page<Transaction> findByFilters(@Param("userId") UUID userId,
-                                    @Param("merchantId") UUID merchantId,
-                                    @Param("paymentTypeId") UUID paymentTypeId,
-                                    @Param("status") TransactionStatus status,
-                                    @Param("startDate") LocalDateTime startDate,
-                                    @Param("endDate") LocalDateTime endDate,
-                                    @Param("minAmount") BigDecimal minAmount,
-                                    @Param("maxAmount") BigDecimal maxAmount,
-                                    Pageable pageable);
+    @Query("SELECT new com.kpmg.omnichannel.dto.report.TransactionHistoryDTO(" +
+           "t.transactionId, CONCAT(u.firstName, ' ', u.lastName), CONCAT(m.firstName, ' ', m.lastName), " +
+           "p.name, t.amount, t.currency, t.status, t.createdAt) " +
+           "FROM Transaction t JOIN t.user u JOIN t.merchant m JOIN t.paymentType p " +
+           "WHERE u.userId = :userId ORDER BY t.createdAt DESC, t.transactionId DESC")
+    List<TransactionHistoryDTO> findRecentHistoryByUserId(@Param("userId") UUID userId, Pageable pageable);
+
+    // A user's transactions grouped by payment type and status, from which all user report figures are derived
+    @Query("SELECT new com.kpmg.omnichannel.dto.report.PaymentTypeStatusAggregateDTO(" +
+           "p.paymentTypeId, p.name, t.status, COUNT(t), SUM(t.amount)) " +
+           "FROM Transaction t JOIN t.paymentType p WHERE t.user.userId = :userId " +
+           "GROUP BY p.paymentTypeId, p.name, t.status")
+    List<PaymentTypeStatusAggregateDTO> aggregateByPaymentTypeAndStatusForUser(@Param("userId") UUID userId);
 }
@@ -0,0 +1,80 @@
+package com.kpmg.omnichannel.repository;
+
+import com.kpmg.omnichannel.dto.report.TransactionHistoryRequest;
+import com.kpmg.omnichannel.model.Transaction;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Criteria building blocks for transaction history queries.
+ *
+ * Only the filters that are actually supplied become predicates, so the database sees plain
+ * equality and range conditions it can serve from the foreign key and created_at indexes,
+ * instead of the "(:param IS NULL OR col = :param)" catch-all that forces a full scan.
+ */
+public final class TransactionSpecifications {
+
+    private TransactionSpecifications() {
+    }
+
+    /**
+     * Filters of a history request; absent filters add no predicate
+     */
+    public static Specification<Transaction> matching(TransactionHistoryRequest request) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (request.getUserId() != null) {
+                predicates.add(cb.equal(root.get("user").get("userId"), request.getUserId()));
+            }
+            if (request.getMerchantId() != null) {
+                predicates.add(cb.equal(root.get("merchant").get("userId"), request.getMerchantId()));
+            }
+            if (request.getPaymentTypeId() != null) {
+                predicates.add(cb.equal(root.get("paymentType").get("paymentTypeId"), request.getPaymentTypeId()));
+            }
+            if (request.getStatus() != null) {
+                predicates.add(cb.equal(root.get("status"), request.getStatus()));
+            }
+            if (request.getCurrency() != null) {
+                predicates.add(cb.equal(root.get("currency"), request.getCurrency()));
+            }
+            if (request.getStartDate() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), request.getStartDate().atStartOfDay()));
+            }
+            if (request.getEndDate() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("createdAt"), request.getEndDate().atTime(LocalTime.MAX)));
+            }
+            if (request.getMinAmount() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("amount"), request.getMinAmount()));
+            }
+            if (request.getMaxAmount() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("amount"), request.getMaxAmount()));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * Keyset seek past (createdAt, transactionId) in the given direction
+     */
+    public static Specification<Transaction> after(LocalDateTime createdAt, UUID transactionId, boolean descending) {
+        return (root, query, cb) -> {
+            if (descending) {
+                return cb.or(
+                        cb.lessThan(root.get("createdAt"), createdAt),
+                        cb.and(cb.equal(root.get("createdAt"), createdAt),
+                                cb.lessThan(root.get("transactionId"), transactionId)));
+            }
+            return cb.or(
+                    cb.greaterThan(root.get("createdAt"), createdAt),
+                    cb.and(cb.equal(root.get("createdAt"), createdAt),
+                            cb.greaterThan(root.get("transactionId"), transactionId)));
+        };
+    }
+}
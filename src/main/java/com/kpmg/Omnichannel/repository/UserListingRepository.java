@@ -0,0 +1,23 @@
+package com.kpmg.omnichannel.repository;
+
+import com.kpmg.omnichannel.dto.UserResponse;
+import com.kpmg.omnichannel.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.function.Consumer;
+
+/**
+ * User listings that select only the {@link UserResponse} columns instead of loading entities.
+ * Roles are not part of the row and are left null for the caller to fill in.
+ */
+public interface UserListingRepository {
+
+    // Fetches one row beyond the page size to tell whether a next page exists, never counts
+    Slice<UserResponse> findUserSlice(Specification<User> spec, Pageable pageable);
+
+    // Streams every matching row through a forward-only cursor; must run inside a transaction
+    void scrollUsers(Specification<User> spec, Sort sort, int fetchSize, Consumer<UserResponse> action);
+}
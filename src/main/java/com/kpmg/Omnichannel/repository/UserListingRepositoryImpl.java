@@ -0,0 +1,106 @@
+package com.kpmg.omnichannel.repository;
+
+import com.kpmg.omnichannel.dto.UserResponse;
+import com.kpmg.omnichannel.model.KycStatus;
+import com.kpmg.omnichannel.model.User;
+import com.kpmg.omnichannel.model.UserStatus;
+import com.kpmg.omnichannel.model.UserType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+public class UserListingRepositoryImpl implements UserListingRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<UserResponse> findUserSlice(Specification<User> spec, Pageable pageable) {
+        List<UserResponse> content = entityManager.createQuery(userQuery(spec, pageable.getSort()))
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList().stream()
+                .map(UserListingRepositoryImpl::toResponse)
+                .toList();
+        boolean hasNext = content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void scrollUsers(Specification<User> spec, Sort sort, int fetchSize, Consumer<UserResponse> action) {
+        Query<Tuple> query = entityManager.createQuery(userQuery(spec, sort)).unwrap(Query.class);
+        try (ScrollableResults<Tuple> results = query
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            long rows = 0;
+            while (results.next()) {
+                action.accept(toResponse(results.get()));
+                if (++rows % fetchSize == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
+    private CriteriaQuery<Tuple> userQuery(Specification<User> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<User> root = query.from(User.class);
+        query.multiselect(
+                root.get("userId").alias("userId"),
+                root.get("firstName").alias("firstName"),
+                root.get("lastName").alias("lastName"),
+                root.get("email").alias("email"),
+                root.get("phone").alias("phone"),
+                root.get("userType").alias("userType"),
+                root.get("status").alias("status"),
+                root.get("kycStatus").alias("kycStatus"),
+                root.get("walletBalance").alias("walletBalance"),
+                root.get("createdAt").alias("createdAt"),
+                root.get("updatedAt").alias("updatedAt"));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        return query;
+    }
+
+    // walletBalance is the stored column; UserService swaps in the spendable balance of sharded wallets
+    private static UserResponse toResponse(Tuple row) {
+        return UserResponse.builder()
+                .userId(row.get("userId", UUID.class))
+                .firstName(row.get("firstName", String.class))
+                .lastName(row.get("lastName", String.class))
+                .email(row.get("email", String.class))
+                .phone(row.get("phone", String.class))
+                .userType(row.get("userType", UserType.class))
+                .status(row.get("status", UserStatus.class))
+                .kycStatus(row.get("kycStatus", KycStatus.class))
+                .walletBalance(row.get("walletBalance", BigDecimal.class))
+                .createdAt(row.get("createdAt", LocalDateTime.class))
+                .updatedAt(row.get("updatedAt", LocalDateTime.class))
+                .build();
+    }
+}
@@ -1,21 +1,69 @@
 package com.kpmg.omnichannel.repository;
 
+import com.kpmg.omnichannel.dto.AccountSnapshot;
 import com.kpmg.omnichannel.model.User;
 import com.kpmg.omnichannel.model.UserStatus;
 import com.kpmg.omnichannel.model.UserType;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, UUID> {
+public interface UserRepository extends JpaRepository<User, UUID>, UserListingRepository {
 
     boolean existsByEmail(String email);
 
+    // Loaders for user responses: roles are fetched in the same statement
+    @EntityGraph(User.WITH_ROLES)
+    Optional<User> findWithRolesByUserId(UUID userId);
+
+    @EntityGraph(User.WITH_ROLES)
+    @Query("SELECT u FROM User u")
+    List<User> findAllWithRoles();
+
+    @EntityGraph(User.WITH_ROLES)
     List<User> findByUserType(UserType userType);
 
+    @EntityGraph(User.WITH_ROLES)
     List<User> findByStatus(UserStatus status);
+
+    // Account status checks without loading the User entity and its roles
+    @Query("SELECT new com.kpmg.omnichannel.dto.AccountSnapshot(u.userId, u.userType, u.status, u.kycStatus) " +
+           "FROM User u WHERE u.userId = :userId")
+    Optional<AccountSnapshot> findAccountSnapshotById(@Param("userId") UUID userId);
+
+    @Query("SELECT new com.kpmg.omnichannel.dto.AccountSnapshot(u.userId, u.userType, u.status, u.kycStatus) " +
+           "FROM User u WHERE u.userId IN :userIds")
+    List<AccountSnapshot> findAccountSnapshotsByIdIn(@Param("userIds") Collection<UUID> userIds);
+
+    // Wallet balance access without loading the User entity
+    @Query("SELECT u.walletBalance FROM User u WHERE u.userId = :userId")
+    Optional<BigDecimal> findWalletBalanceById(@Param("userId") UUID userId);
+
+    // Locking read of the balance; batch settlement locks every account it touches this way, in id order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u.walletBalance FROM User u WHERE u.userId = :userId")
+    Optional<BigDecimal> findWalletBalanceForUpdate(@Param("userId") UUID userId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE User u SET u.walletBalance = u.walletBalance + :delta WHERE u.userId = :userId")
+    int adjustWalletBalance(@Param("userId") UUID userId, @Param("delta") BigDecimal delta);
+
+    // Guarded debit: only succeeds if the balance covers the amount, no read-modify-write
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE User u SET u.walletBalance = u.walletBalance - :amount " +
+           "WHERE u.userId = :userId AND u.walletBalance >= :amount")
+    int debitWalletBalance(@Param("userId") UUID userId, @Param("amount") BigDecimal amount);
 }
 
@@ -2,8 +2,12 @@ package com.kpmg.omnichannel.repository;
 
 import com.kpmg.omnichannel.model.UserRole;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
@@ -12,5 +16,11 @@ public interface UserRoleRepository extends JpaRepository<UserRole, UUID> {
     void deleteByUser_UserIdAndRole_RoleId(UUID userId, UUID roleId);
 
     boolean existsByUser_UserIdAndRole_RoleId(UUID userId, UUID roleId);
+
+    @Query("SELECT ur.user.userId, ur.role.roleId FROM UserRole ur")
+    List<Object[]> findAllUserIdAndRoleIds();
+
+    @Query("SELECT ur.user.userId, r.name FROM UserRole ur JOIN ur.role r WHERE ur.user.userId IN :userIds")
+    List<Object[]> findUserIdAndRoleNames(@Param("userIds") Collection<UUID> userIds);
 }
 
@@ -0,0 +1,88 @@
+package com.kpmg.omnichannel.repository;
+
+import com.kpmg.omnichannel.dto.UserSearchRequest;
+import com.kpmg.omnichannel.model.User;
+import com.kpmg.omnichannel.model.UserStatus;
+import com.kpmg.omnichannel.model.UserType;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Criteria building blocks for user listings; absent filters add no predicate.
+ *
+ * Text filters are plain "column LIKE 'prefix%'" conditions on the raw column, never wrapped
+ * in a function, so they stay range scans on the email, phone and (last_name, first_name) indexes.
+ */
+public final class UserSpecifications {
+
+    private static final char ESCAPE = '\\';
+
+    private UserSpecifications() {
+    }
+
+    public static Specification<User> matching(UserType userType, UserStatus status) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (userType != null) {
+                predicates.add(cb.equal(root.get("userType"), userType));
+            }
+            if (status != null) {
+                predicates.add(cb.equal(root.get("status"), status));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    public static Specification<User> matching(UserSearchRequest request) {
+        return matching(request.getUserType(), request.getStatus()).and((root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (hasText(request.getEmail())) {
+                predicates.add(cb.like(root.get("email"), prefix(request.getEmail()), ESCAPE));
+            }
+            if (hasText(request.getPhone())) {
+                predicates.add(cb.like(root.get("phone"), prefix(request.getPhone()), ESCAPE));
+            }
+            if (hasText(request.getLastName())) {
+                predicates.add(cb.like(root.get("lastName"), prefix(request.getLastName()), ESCAPE));
+            }
+            if (hasText(request.getFirstName())) {
+                predicates.add(cb.like(root.get("firstName"), prefix(request.getFirstName()), ESCAPE));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        });
+    }
+
+    /**
+     * Keyset seek past the given position in ascending order of the attributes, compared
+     * left to right; the values must be non-null and listed in the same order
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<User> after(List<String> attributes, List<? extends Comparable<?>> values) {
+        return (root, query, cb) -> {
+            List<Predicate> branches = new ArrayList<>();
+            for (int i = 0; i < attributes.size(); i++) {
+                List<Predicate> branch = new ArrayList<>();
+                for (int j = 0; j < i; j++) {
+                    branch.add(cb.equal(root.get(attributes.get(j)), values.get(j)));
+                }
+                branch.add(cb.greaterThan(root.get(attributes.get(i)), (Comparable) values.get(i)));
+                branches.add(cb.and(branch.toArray(new Predicate[0])));
+            }
+            return cb.or(branches.toArray(new Predicate[0]));
+        };
+    }
+
+    public static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+    // LIKE pattern matching the value literally at the start of the column
+    private static String prefix(String value) {
+        return value.trim()
+                .replace(String.valueOf(ESCAPE), String.valueOf(ESCAPE) + ESCAPE)
+                .replace("%", ESCAPE + "%")
+                .replace("_", ESCAPE + "_") + "%";
+    }
+}
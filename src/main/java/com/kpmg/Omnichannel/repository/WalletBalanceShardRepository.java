@@ -0,0 +1,51 @@
+package com.kpmg.omnichannel.repository;
+
+import com.kpmg.omnichannel.model.WalletBalanceShard;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface WalletBalanceShardRepository extends JpaRepository<WalletBalanceShard, UUID> {
+
+    boolean existsByUserId(UUID userId);
+
+    @Query("SELECT DISTINCT s.userId FROM WalletBalanceShard s")
+    List<UUID> findShardedUserIds();
+
+    @Modifying
+    @Query("UPDATE WalletBalanceShard s SET s.balance = s.balance + :amount " +
+           "WHERE s.userId = :userId AND s.shardNo = :shardNo")
+    int creditShard(@Param("userId") UUID userId,
+                    @Param("shardNo") Integer shardNo,
+                    @Param("amount") BigDecimal amount);
+
+    // Main balance plus all shards, read in one statement so consolidation can't be observed half-way
+    @Query("SELECT u.walletBalance + COALESCE((SELECT SUM(s.balance) FROM WalletBalanceShard s " +
+           "WHERE s.userId = u.userId), 0) FROM User u WHERE u.userId = :userId")
+    Optional<BigDecimal> findTotalBalance(@Param("userId") UUID userId);
+
+    // findTotalBalance for many wallets at once, as (userId, total) rows
+    @Query("SELECT u.userId, u.walletBalance + COALESCE((SELECT SUM(s.balance) FROM WalletBalanceShard s " +
+           "WHERE s.userId = u.userId), 0) FROM User u WHERE u.userId IN :userIds")
+    List<Object[]> findTotalBalances(@Param("userIds") Collection<UUID> userIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM WalletBalanceShard s WHERE s.userId = :userId ORDER BY s.shardNo")
+    List<WalletBalanceShard> findByUserIdForUpdate(@Param("userId") UUID userId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM WalletBalanceShard s WHERE s.userId = :userId AND s.shardNo = :shardNo")
+    Optional<WalletBalanceShard> findByUserIdAndShardNoForUpdate(@Param("userId") UUID userId,
+                                                                 @Param("shardNo") Integer shardNo);
+}
@@ -0,0 +1,174 @@
+package com.kpmg.omnichannel.service;
+
+import com.kpmg.omnichannel.dto.AccountSnapshot;
+import com.kpmg.omnichannel.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Size-bounded LRU cache of account status snapshots, keyed by user id.
+ *
+ * Snapshots are loaded on first use with a narrow projection query. Entries are partitioned into
+ * lock stripes by user id, each evicting its least recently used entries on its own, and expire a
+ * fixed time after they were loaded. {@link UserService} invalidates a user once a change to it
+ * commits. A load that was already running when an invalidation hit its stripe is not cached, so
+ * a snapshot read before the change can never outlive it.
+ */
+@Component
+public class AccountSnapshotCache {
+
+    private final UserRepository userRepository;
+    private final long ttlNanos;
+    private final Stripe[] stripes;
+
+    public AccountSnapshotCache(UserRepository userRepository,
+                                @Value("${omnichannel.accounts.snapshot-cache.max-entries:100000}") int maxEntries,
+                                @Value("${omnichannel.accounts.snapshot-cache.ttl-seconds:30}") long ttlSeconds,
+                                @Value("${omnichannel.accounts.snapshot-cache.stripes:64}") int stripeCount) {
+        this.userRepository = userRepository;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        int stripeCapacity = Math.max(1, (maxEntries + size - 1) / size);
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe(stripeCapacity);
+        }
+    }
+
+    public Optional<AccountSnapshot> find(UUID userId) {
+        Stripe stripe = stripeOf(userId);
+        AccountSnapshot snapshot = stripe.get(userId, System.nanoTime());
+        if (snapshot != null) {
+            return Optional.of(snapshot);
+        }
+        long version = stripe.version();
+        Optional<AccountSnapshot> loaded = userRepository.findAccountSnapshotById(userId);
+        loaded.ifPresent(found -> stripe.putIfCurrent(found, version, System.nanoTime()));
+        return loaded;
+    }
+
+    /**
+     * Get the snapshots of the given users; ids that do not exist are absent from the result
+     */
+    public Map<UUID, AccountSnapshot> findAll(Collection<UUID> userIds) {
+        Map<UUID, AccountSnapshot> found = new HashMap<>();
+        Map<UUID, Long> missing = new HashMap<>();
+        long now = System.nanoTime();
+        for (UUID userId : userIds) {
+            Stripe stripe = stripeOf(userId);
+            AccountSnapshot snapshot = stripe.get(userId, now);
+            if (snapshot != null) {
+                found.put(userId, snapshot);
+            } else {
+                missing.put(userId, stripe.version());
+            }
+        }
+        if (!missing.isEmpty()) {
+            List<AccountSnapshot> loaded = userRepository.findAccountSnapshotsByIdIn(new ArrayList<>(missing.keySet()));
+            long loadedAt = System.nanoTime();
+            for (AccountSnapshot snapshot : loaded) {
+                stripeOf(snapshot.userId()).putIfCurrent(snapshot, missing.get(snapshot.userId()), loadedAt);
+                found.put(snapshot.userId(), snapshot);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Drop the user's snapshot once the surrounding transaction commits, or right away without one
+     */
+    public void invalidate(UUID userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            stripeOf(userId).evict(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                stripeOf(userId).evict(userId);
+            }
+        });
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private Stripe stripeOf(UUID userId) {
+        int h = userId.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+    }
+
+    private record Entry(AccountSnapshot snapshot, long loadedAt) {
+    }
+
+    /**
+     * One lock stripe: an access-ordered map guarded by its own monitor, with a counter of the
+     * invalidations it has seen so that stale loads can be recognised
+     */
+    private final class Stripe {
+
+        private final LinkedHashMap<UUID, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final int maxEntries;
+        private long invalidations;
+
+        private Stripe(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        synchronized AccountSnapshot get(UUID userId, long now) {
+            Entry entry = entries.get(userId);
+            if (entry == null) {
+                return null;
+            }
+            if (now - entry.loadedAt() >= ttlNanos) {
+                entries.remove(userId);
+                return null;
+            }
+            return entry.snapshot();
+        }
+
+        synchronized long version() {
+            return invalidations;
+        }
+
+        synchronized void putIfCurrent(AccountSnapshot snapshot, long version, long now) {
+            if (version != invalidations) {
+                return;
+            }
+            entries.put(snapshot.userId(), new Entry(snapshot, now));
+            Iterator<UUID> eldest = entries.keySet().iterator();
+            while (entries.size() > maxEntries) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+
+        synchronized void evict(UUID userId) {
+            invalidations++;
+            entries.remove(userId);
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+}
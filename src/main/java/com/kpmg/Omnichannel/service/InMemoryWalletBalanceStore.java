@@ -0,0 +1,311 @@
+package com.kpmg.omnichannel.service;
+
+import com.kpmg.omnichannel.exception.InsufficientBalanceException;
+import com.kpmg.omnichannel.exception.ResourceNotFoundException;
+import com.kpmg.omnichannel.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Opt-in wallet balance engine (omnichannel.wallet.in-memory.enabled=true).
+ *
+ * Balances are held in memory as long minor units, partitioned into lock stripes by user id.
+ * Every mutation is appended to a delta journal that is drained on a schedule, coalesced per
+ * user and written to users.wallet_balance in one database transaction per batch.
+ *
+ * This store assumes it is the only writer of wallet balances, i.e. a single application
+ * instance. Reads of User.walletBalance through JPA may lag by up to one flush interval.
+ */
+@Component
+@ConditionalOnProperty(name = "omnichannel.wallet.in-memory.enabled", havingValue = "true")
+@Slf4j
+public class InMemoryWalletBalanceStore {
+
+    private static final int SCALE = 2;
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate flushTemplate;
+    private final int flushBatchSize;
+
+    private final ReentrantLock[] locks;
+    private final List<Map<UUID, long[]>> stripes;
+
+    private final ConcurrentLinkedQueue<JournalEntry> journal = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger journalSize = new AtomicInteger();
+
+    public InMemoryWalletBalanceStore(UserRepository userRepository,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${omnichannel.wallet.in-memory.stripes:64}") int stripeCount,
+                                      @Value("${omnichannel.wallet.in-memory.flush-batch-size:500}") int flushBatchSize) {
+        this.userRepository = userRepository;
+        this.flushTemplate = new TransactionTemplate(transactionManager);
+        this.flushTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.flushBatchSize = flushBatchSize;
+
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.locks = new ReentrantLock[size];
+        this.stripes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+            stripes.add(new HashMap<>());
+        }
+    }
+
+    public BigDecimal getBalance(UUID userId) {
+        return getBalance(userId, null);
+    }
+
+    /**
+     * Balance of a wallet whose users.wallet_balance column the caller has already read.
+     * A wallet that is not held in memory yet has no pending deltas, so it is seeded from that
+     * value instead of being read again.
+     */
+    public BigDecimal getBalance(UUID userId, BigDecimal persisted) {
+        long[] balance = load(userId, persisted);
+        int stripe = stripeOf(userId);
+        locks[stripe].lock();
+        try {
+            return toAmount(balance[0]);
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    public boolean hasSufficientBalance(UUID userId, BigDecimal amount) {
+        long[] balance = load(userId);
+        long required = toMinorUnits(amount);
+        int stripe = stripeOf(userId);
+        locks[stripe].lock();
+        try {
+            return balance[0] >= required;
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    public BigDecimal credit(UUID userId, BigDecimal amount) {
+        long[] balance = load(userId);
+        long delta = toMinorUnits(amount);
+        int stripe = stripeOf(userId);
+        long newBalance;
+        locks[stripe].lock();
+        try {
+            balance[0] += delta;
+            newBalance = balance[0];
+            append(userId, delta);
+        } finally {
+            locks[stripe].unlock();
+        }
+        compensateOnRollback(() -> applyRaw(userId, -delta));
+        return toAmount(newBalance);
+    }
+
+    public BigDecimal debit(UUID userId, BigDecimal amount) {
+        long[] balance = load(userId);
+        long delta = toMinorUnits(amount);
+        int stripe = stripeOf(userId);
+        long newBalance;
+        locks[stripe].lock();
+        try {
+            if (balance[0] < delta) {
+                throw new InsufficientBalanceException(
+                        String.format("Insufficient balance. Available: %.2f, Required: %.2f",
+                                toAmount(balance[0]), amount)
+                );
+            }
+            balance[0] -= delta;
+            newBalance = balance[0];
+            append(userId, -delta);
+        } finally {
+            locks[stripe].unlock();
+        }
+        compensateOnRollback(() -> applyRaw(userId, delta));
+        return toAmount(newBalance);
+    }
+
+    /**
+     * Move money between two wallets atomically. Stripe locks are always taken in
+     * ascending stripe order so concurrent opposite-direction transfers cannot deadlock.
+     */
+    public void transfer(UUID fromUserId, UUID toUserId, BigDecimal amount) {
+        long[] from = load(fromUserId);
+        long[] to = load(toUserId);
+        long delta = toMinorUnits(amount);
+
+        int first = Math.min(stripeOf(fromUserId), stripeOf(toUserId));
+        int second = Math.max(stripeOf(fromUserId), stripeOf(toUserId));
+        locks[first].lock();
+        if (second != first) {
+            locks[second].lock();
+        }
+        try {
+            if (from[0] < delta) {
+                throw new InsufficientBalanceException(
+                        String.format("Insufficient balance. Available: %.2f, Required: %.2f",
+                                toAmount(from[0]), amount)
+                );
+            }
+            from[0] -= delta;
+            to[0] += delta;
+            append(fromUserId, -delta);
+            append(toUserId, delta);
+        } finally {
+            if (second != first) {
+                locks[second].unlock();
+            }
+            locks[first].unlock();
+        }
+        compensateOnRollback(() -> {
+            applyRaw(toUserId, -delta);
+            applyRaw(fromUserId, delta);
+        });
+    }
+
+    public int getPendingJournalEntries() {
+        return journalSize.get();
+    }
+
+    /**
+     * Drain the journal in batches, coalescing deltas per user, and persist them
+     */
+    @Scheduled(fixedDelayString = "${omnichannel.wallet.in-memory.flush-interval-ms:200}")
+    public void flush() {
+        while (!journal.isEmpty()) {
+            Map<UUID, Long> deltas = new HashMap<>();
+            JournalEntry entry;
+            int drained = 0;
+            while (drained < flushBatchSize && (entry = journal.poll()) != null) {
+                journalSize.decrementAndGet();
+                deltas.merge(entry.userId(), entry.deltaMinorUnits(), Long::sum);
+                drained++;
+            }
+            if (!persist(deltas)) {
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+        if (!journal.isEmpty()) {
+            log.error("{} wallet journal entries could not be persisted on shutdown", journalSize.get());
+        }
+    }
+
+    private boolean persist(Map<UUID, Long> deltas) {
+        try {
+            flushTemplate.executeWithoutResult(status -> deltas.forEach((userId, delta) -> {
+                if (delta != 0) {
+                    userRepository.adjustWalletBalance(userId, toAmount(delta));
+                }
+            }));
+            log.debug("Flushed wallet deltas for {} users", deltas.size());
+            return true;
+        } catch (Exception e) {
+            // Deltas are commutative, so re-queueing them keeps the journal correct
+            log.error("Failed to flush wallet journal, {} users will be retried", deltas.size(), e);
+            deltas.forEach(this::append);
+            return false;
+        }
+    }
+
+    private long[] load(UUID userId) {
+        return load(userId, null);
+    }
+
+    // persisted is the caller's read of users.wallet_balance, or null to read it on a miss
+    private long[] load(UUID userId, BigDecimal persisted) {
+        int stripe = stripeOf(userId);
+        locks[stripe].lock();
+        try {
+            long[] balance = stripes.get(stripe).get(userId);
+            if (balance != null) {
+                return balance;
+            }
+        } finally {
+            locks[stripe].unlock();
+        }
+
+        // Load outside the lock so a cold miss does not stall the whole stripe
+        BigDecimal initial = persisted != null ? persisted : userRepository.findWalletBalanceById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
+
+        locks[stripe].lock();
+        try {
+            return stripes.get(stripe).computeIfAbsent(userId, id -> new long[]{toMinorUnits(initial)});
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    private void applyRaw(UUID userId, long delta) {
+        long[] balance = load(userId);
+        int stripe = stripeOf(userId);
+        locks[stripe].lock();
+        try {
+            balance[0] += delta;
+            append(userId, delta);
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    /**
+     * Undo an in-memory mutation if the surrounding database transaction rolls back
+     */
+    private void compensateOnRollback(Runnable compensation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    compensation.run();
+                }
+            }
+        });
+    }
+
+    private void append(UUID userId, long delta) {
+        journal.add(new JournalEntry(userId, delta));
+        journalSize.incrementAndGet();
+    }
+
+    private int stripeOf(UUID userId) {
+        int h = userId.hashCode();
+        return (h ^ (h >>> 16)) & (locks.length - 1);
+    }
+
+    private static long toMinorUnits(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal toAmount(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    private record JournalEntry(UUID userId, long deltaMinorUnits) {
+    }
+}
@@ -0,0 +1,208 @@
+package com.kpmg.omnichannel.service;
+
+import com.kpmg.omnichannel.model.LedgerEntry;
+import com.kpmg.omnichannel.model.LedgerEntryType;
+import com.kpmg.omnichannel.model.LedgerSnapshot;
+import com.kpmg.omnichannel.repository.LedgerEntryRepository;
+import com.kpmg.omnichannel.repository.LedgerSnapshotRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Append-only double-entry ledger for wallet movements.
+ *
+ * Every wallet mutation appends ledger_entries rows in the same database transaction.
+ * A ledger balance is materialized as the user's latest ledger_snapshots row plus a replay of
+ * the entries created since that snapshot. Snapshots are advanced on a schedule up to a cutoff
+ * that trails the clock.
+ *
+ * Entries are stamped when they are inserted, not when they commit, so an entry can become
+ * visible after a snapshot already covers its timestamp. Each snapshot therefore also stores the
+ * signed sum of its trailing overlap window as it saw it. Reads and the next advance re-sum that
+ * window and add only the difference, which is exactly the entries that committed late. Entries
+ * that commit more than lag plus overlap after they were created are not picked up.
+ */
+@Service
+@Slf4j
+public class LedgerService {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final LedgerEntryRepository entryRepository;
+    private final LedgerSnapshotRepository snapshotRepository;
+    private final TransactionTemplate requiresNewTemplate;
+    private final long snapshotLagSeconds;
+    private final long snapshotOverlapSeconds;
+    private final boolean backfillOpeningBalances;
+    private final int backfillBatchSize;
+
+    private volatile LocalDateTime lastCutoff;
+
+    public LedgerService(LedgerEntryRepository entryRepository,
+                         LedgerSnapshotRepository snapshotRepository,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${omnichannel.ledger.snapshot-lag-seconds:300}") long snapshotLagSeconds,
+                         @Value("${omnichannel.ledger.snapshot-overlap-seconds:3600}") long snapshotOverlapSeconds,
+                         @Value("${omnichannel.ledger.backfill-opening-balances:false}") boolean backfillOpeningBalances,
+                         @Value("${omnichannel.ledger.backfill-batch-size:500}") int backfillBatchSize) {
+        this.entryRepository = entryRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.requiresNewTemplate = new TransactionTemplate(transactionManager);
+        this.requiresNewTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.snapshotLagSeconds = snapshotLagSeconds;
+        this.snapshotOverlapSeconds = snapshotOverlapSeconds;
+        this.backfillOpeningBalances = backfillOpeningBalances;
+        this.backfillBatchSize = backfillBatchSize;
+    }
+
+    /**
+     * Append the debit and credit legs of a transfer in one batch insert
+     */
+    @Transactional
+    public void recordTransfer(UUID transactionId, UUID fromUserId, UUID toUserId, BigDecimal amount) {
+        entryRepository.saveAll(List.of(
+                entry(transactionId, fromUserId, LedgerEntryType.DEBIT, amount),
+                entry(transactionId, toUserId, LedgerEntryType.CREDIT, amount)
+        ));
+    }
+
+    /**
+     * Append both legs of every transfer in one batch insert
+     */
+    @Transactional
+    public void recordTransfers(List<WalletService.Transfer> transfers) {
+        List<LedgerEntry> entries = new ArrayList<>(transfers.size() * 2);
+        for (WalletService.Transfer transfer : transfers) {
+            entries.add(entry(transfer.transactionId(), transfer.fromUserId(), LedgerEntryType.DEBIT, transfer.amount()));
+            entries.add(entry(transfer.transactionId(), transfer.toUserId(), LedgerEntryType.CREDIT, transfer.amount()));
+        }
+        entryRepository.saveAll(entries);
+    }
+
+    @Transactional
+    public void recordCredit(UUID userId, BigDecimal amount) {
+        entryRepository.save(entry(null, userId, LedgerEntryType.CREDIT, amount));
+    }
+
+    @Transactional
+    public void recordDebit(UUID userId, BigDecimal amount) {
+        entryRepository.save(entry(null, userId, LedgerEntryType.DEBIT, amount));
+    }
+
+    /**
+     * Ledger balance: latest snapshot plus replay of every entry since the start of its overlap
+     * window, minus the part of that window the snapshot already includes
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal getBalance(UUID userId) {
+        Optional<LedgerSnapshot> snapshot = snapshotRepository.findById(userId);
+        LocalDateTime asOf = snapshot.map(LedgerSnapshot::getAsOf).orElse(EPOCH);
+        BigDecimal base = snapshot.map(s -> s.getBalance().subtract(s.getOverlapBalance())).orElse(BigDecimal.ZERO);
+        return base.add(entryRepository.sumSignedAmountSince(userId, asOf.minusSeconds(snapshotOverlapSeconds)));
+    }
+
+    @Transactional(readOnly = true)
+    public List<LedgerEntry> getRecentEntries(UUID userId, int limit) {
+        return entryRepository.findRecentByUserId(userId, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Advance the snapshot of every user with entries since the previous run
+     */
+    @Scheduled(fixedDelayString = "${omnichannel.ledger.snapshot-interval-ms:60000}")
+    public void snapshot() {
+        LocalDateTime cutoff = LocalDateTime.now().minusSeconds(snapshotLagSeconds);
+        LocalDateTime from = lastCutoff != null ? lastCutoff : snapshotRepository.findLatestAsOf().orElse(EPOCH);
+        if (!cutoff.isAfter(from)) {
+            return;
+        }
+
+        // Users whose only new entries committed late, inside the overlap, are picked up as well
+        List<UUID> userIds = entryRepository.findUserIdsWithEntriesBetween(from.minusSeconds(snapshotOverlapSeconds), cutoff);
+        for (UUID userId : userIds) {
+            try {
+                requiresNewTemplate.executeWithoutResult(status -> snapshotUser(userId, cutoff));
+            } catch (Exception e) {
+                log.warn("Failed to snapshot ledger for user {}", userId, e);
+                return;
+            }
+        }
+        lastCutoff = cutoff;
+        log.debug("Advanced ledger snapshots of {} users to {}", userIds.size(), cutoff);
+    }
+
+    /**
+     * One-off migration for wallets that held money before the ledger existed: appends an opening
+     * entry for the difference between each wallet and its ledger balance. Enabled with
+     * omnichannel.ledger.backfill-opening-balances; a wallet that already has an opening entry is
+     * skipped, so later restarts with the flag still on do nothing.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOpeningBalances() {
+        if (!backfillOpeningBalances) {
+            return;
+        }
+        UUID after = null;
+        int recorded = 0;
+        while (true) {
+            UUID from = after;
+            List<Object[]> rows = requiresNewTemplate.execute(status -> {
+                List<Object[]> page = entryRepository.findUnrecordedOpeningBalances(from, PageRequest.of(0, backfillBatchSize));
+                List<LedgerEntry> openings = page.stream()
+                        .filter(row -> ((BigDecimal) row[1]).signum() != 0)
+                        .map(row -> entry(null, (UUID) row[0], LedgerEntryType.OPENING, (BigDecimal) row[1]))
+                        .toList();
+                entryRepository.saveAll(openings);
+                return page;
+            });
+            if (rows.isEmpty()) {
+                break;
+            }
+            recorded += (int) rows.stream().filter(row -> ((BigDecimal) row[1]).signum() != 0).count();
+            after = (UUID) rows.get(rows.size() - 1)[0];
+        }
+        log.info("Recorded opening ledger balances for {} wallets", recorded);
+    }
+
+    private void snapshotUser(UUID userId, LocalDateTime cutoff) {
+        LedgerSnapshot snapshot = snapshotRepository.findByUserIdForUpdate(userId)
+                .orElseGet(() -> new LedgerSnapshot(userId, BigDecimal.ZERO, EPOCH, BigDecimal.ZERO));
+        // Idempotent: a snapshot already advanced past the cutoff is left alone
+        if (!cutoff.isAfter(snapshot.getAsOf())) {
+            return;
+        }
+        Object[] sums = entryRepository.sumSignedAmountWithOverlap(userId,
+                snapshot.getAsOf().minusSeconds(snapshotOverlapSeconds), cutoff,
+                cutoff.minusSeconds(snapshotOverlapSeconds)).get(0);
+        // The previous overlap window is re-summed, so its stored part is taken out again
+        snapshot.setBalance(snapshot.getBalance().subtract(snapshot.getOverlapBalance()).add((BigDecimal) sums[0]));
+        snapshot.setOverlapBalance((BigDecimal) sums[1]);
+        snapshot.setAsOf(cutoff);
+        snapshotRepository.save(snapshot);
+    }
+
+    private LedgerEntry entry(UUID transactionId, UUID userId, LedgerEntryType type, BigDecimal amount) {
+        LedgerEntry entry = new LedgerEntry();
+        entry.setTransactionId(transactionId);
+        entry.setUserId(userId);
+        entry.setEntryType(type);
+        entry.setAmount(amount);
+        return entry;
+    }
+}
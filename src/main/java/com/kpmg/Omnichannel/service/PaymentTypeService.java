@@ -2,6 +2,9 @@ package com.kpmg.omnichannel.service;
 
 import com.kpmg.omnichannel.dto.PaymentTypeRequest;
 import com.kpmg.omnichannel.dto.PaymentTypeResponse;
+import com.kpmg.omnichannel.dto.PaymentTypeSnapshot;
+import com.kpmg.omnichannel.dto.ReferenceDataCacheMetricsResponse;
+import com.kpmg.omnichannel.model.Channel;
 import com.kpmg.omnichannel.model.PaymentType;
 import com.kpmg.omnichannel.repository.PaymentTypeRepository;
 import lombok.RequiredArgsConstructor;
@@ -16,30 +19,45 @@ import java.util.stream.Collectors;
 public class PaymentTypeService {
 
     private final PaymentTypeRepository paymentTypeRepository;
+    private final ReferenceDataCache referenceDataCache;
 
     public PaymentTypeResponse createPaymentType(PaymentTypeRequest request) {
+        Channel.validateAll(request.getEnabledChannels());
+
         PaymentType paymentType = new PaymentType();
         paymentType.setName(request.getName());
         paymentType.setEnabledChannels(request.getEnabledChannels());
         paymentType.setIsActive(request.getIsActive());
 
         PaymentType savedPaymentType = paymentTypeRepository.save(paymentType);
+        referenceDataCache.paymentTypeSaved(savedPaymentType);
         return mapToResponse(savedPaymentType);
     }
 
     public List<PaymentTypeResponse> getAllPaymentTypes() {
-        return paymentTypeRepository.findAll().stream()
+        return referenceDataCache.getAllPaymentTypes().stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Get the payment types that may be used on the given channel
+     */
+    public List<PaymentTypeResponse> getPaymentTypesForChannel(String channel) {
+        return referenceDataCache.getPaymentTypesForChannel(Channel.from(channel)).stream()
                 .map(this::mapToResponse)
                 .collect(Collectors.toList());
     }
 
     public PaymentTypeResponse getPaymentTypeById(UUID id) {
-        PaymentType paymentType = paymentTypeRepository.findById(id)
+        PaymentTypeSnapshot paymentType = referenceDataCache.findPaymentType(id)
                 .orElseThrow(() -> new RuntimeException("Payment Type not found"));
         return mapToResponse(paymentType);
     }
 
     public PaymentTypeResponse updatePaymentType(UUID id, PaymentTypeRequest request) {
+        Channel.validateAll(request.getEnabledChannels());
+
         PaymentType paymentType = paymentTypeRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Payment Type not found"));
 
@@ -48,11 +66,26 @@ public class PaymentTypeService {
         paymentType.setIsActive(request.getIsActive());
 
         PaymentType updatedPaymentType = paymentTypeRepository.save(paymentType);
+        referenceDataCache.paymentTypeSaved(updatedPaymentType);
         return mapToResponse(updatedPaymentType);
     }
 
     public void deletePaymentType(UUID id) {
         paymentTypeRepository.deleteById(id);
+        referenceDataCache.paymentTypeDeleted(id);
+    }
+
+    public ReferenceDataCacheMetricsResponse getCacheMetrics() {
+        return referenceDataCache.getMetrics();
+    }
+
+    private PaymentTypeResponse mapToResponse(PaymentTypeSnapshot paymentType) {
+        PaymentTypeResponse response = new PaymentTypeResponse();
+        response.setPaymentTypeId(paymentType.paymentTypeId());
+        response.setName(paymentType.name());
+        response.setEnabledChannels(paymentType.enabledChannels());
+        response.setIsActive(paymentType.isActive());
+        return response;
     }
 
     private PaymentTypeResponse mapToResponse(PaymentType paymentType) {
@@ -0,0 +1,230 @@
+package com.kpmg.omnichannel.service;
+
+import com.kpmg.omnichannel.dto.PaymentTypeSnapshot;
+import com.kpmg.omnichannel.dto.ReferenceDataCacheMetricsResponse;
+import com.kpmg.omnichannel.dto.RoleSnapshot;
+import com.kpmg.omnichannel.model.Channel;
+import com.kpmg.omnichannel.model.PaymentType;
+import com.kpmg.omnichannel.model.Role;
+import com.kpmg.omnichannel.repository.PaymentTypeRepository;
+import com.kpmg.omnichannel.repository.RoleRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-process read-through cache of the payment type and role reference data.
+ *
+ * Both tables are loaded at startup into immutable maps keyed by id. Writes made through
+ * {@link PaymentTypeService} and {@link RoleService} build a new map and swap it in once their
+ * transaction commits, so readers never lock and never see a half-applied change. A miss falls
+ * back to the database and caches what it finds, which also picks up rows written elsewhere.
+ *
+ * Rows are cached as immutable snapshots taken when they are read or saved, never as entities,
+ * so threads cannot change what they share and no request's persistence context is held on to.
+ * Callers that need to reference a row from an entity use the repository's getReferenceById.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ReferenceDataCache {
+
+    private final PaymentTypeRepository paymentTypeRepository;
+    private final RoleRepository roleRepository;
+
+    private volatile Map<UUID, PaymentTypeSnapshot> paymentTypes = Map.of();
+    private volatile Map<UUID, RoleSnapshot> roles = Map.of();
+
+    private final AtomicLong paymentTypeHits = new AtomicLong();
+    private final AtomicLong paymentTypeMisses = new AtomicLong();
+    private final AtomicLong roleHits = new AtomicLong();
+    private final AtomicLong roleMisses = new AtomicLong();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        paymentTypes = index(paymentTypeRepository.findAll().stream().map(ReferenceDataCache::snapshotOf).toList(),
+                PaymentTypeSnapshot::paymentTypeId);
+        roles = index(roleRepository.findAll().stream().map(ReferenceDataCache::snapshotOf).toList(),
+                RoleSnapshot::roleId);
+        log.info("Cached {} payment types and {} roles", paymentTypes.size(), roles.size());
+    }
+
+    public Optional<PaymentTypeSnapshot> findPaymentType(UUID paymentTypeId) {
+        PaymentTypeSnapshot paymentType = paymentTypes.get(paymentTypeId);
+        if (paymentType != null) {
+            paymentTypeHits.incrementAndGet();
+            return Optional.of(paymentType);
+        }
+        paymentTypeMisses.incrementAndGet();
+        Optional<PaymentTypeSnapshot> loaded = paymentTypeRepository.findById(paymentTypeId)
+                .map(ReferenceDataCache::snapshotOf);
+        loaded.ifPresent(found -> putPaymentType(found, false));
+        return loaded;
+    }
+
+    /**
+     * Get the payment types with the given ids; ids that do not exist are absent from the result
+     */
+    public Map<UUID, PaymentTypeSnapshot> findPaymentTypes(Collection<UUID> paymentTypeIds) {
+        Map<UUID, PaymentTypeSnapshot> cached = paymentTypes;
+        Map<UUID, PaymentTypeSnapshot> found = new HashMap<>();
+        List<UUID> missing = new ArrayList<>();
+        for (UUID id : paymentTypeIds) {
+            PaymentTypeSnapshot paymentType = cached.get(id);
+            if (paymentType != null) {
+                found.put(id, paymentType);
+            } else {
+                missing.add(id);
+            }
+        }
+        paymentTypeHits.addAndGet(found.size());
+        if (!missing.isEmpty()) {
+            paymentTypeMisses.addAndGet(missing.size());
+            for (PaymentType loaded : paymentTypeRepository.findAllById(missing)) {
+                PaymentTypeSnapshot paymentType = snapshotOf(loaded);
+                putPaymentType(paymentType, false);
+                found.put(paymentType.paymentTypeId(), paymentType);
+            }
+        }
+        return found;
+    }
+
+    public List<PaymentTypeSnapshot> getAllPaymentTypes() {
+        paymentTypeHits.incrementAndGet();
+        return List.copyOf(paymentTypes.values());
+    }
+
+    public List<PaymentTypeSnapshot> getPaymentTypesForChannel(Channel channel) {
+        paymentTypeHits.incrementAndGet();
+        return paymentTypes.values().stream()
+                .filter(paymentType -> paymentType.isEnabledFor(channel))
+                .toList();
+    }
+
+    public Optional<RoleSnapshot> findRole(UUID roleId) {
+        RoleSnapshot role = roles.get(roleId);
+        if (role != null) {
+            roleHits.incrementAndGet();
+            return Optional.of(role);
+        }
+        roleMisses.incrementAndGet();
+        Optional<RoleSnapshot> loaded = roleRepository.findById(roleId).map(ReferenceDataCache::snapshotOf);
+        loaded.ifPresent(found -> putRole(found, false));
+        return loaded;
+    }
+
+    public List<RoleSnapshot> getAllRoles() {
+        roleHits.incrementAndGet();
+        return List.copyOf(roles.values());
+    }
+
+    public void paymentTypeSaved(PaymentType paymentType) {
+        PaymentTypeSnapshot snapshot = snapshotOf(paymentType);
+        afterCommit(() -> putPaymentType(snapshot, true));
+    }
+
+    public void paymentTypeDeleted(UUID paymentTypeId) {
+        afterCommit(() -> removePaymentType(paymentTypeId));
+    }
+
+    public void roleSaved(Role role) {
+        RoleSnapshot snapshot = snapshotOf(role);
+        afterCommit(() -> putRole(snapshot, true));
+    }
+
+    public void roleDeleted(UUID roleId) {
+        afterCommit(() -> removeRole(roleId));
+    }
+
+    public ReferenceDataCacheMetricsResponse getMetrics() {
+        return ReferenceDataCacheMetricsResponse.builder()
+                .paymentTypes(paymentTypes.size())
+                .roles(roles.size())
+                .paymentTypeHits(paymentTypeHits.get())
+                .paymentTypeMisses(paymentTypeMisses.get())
+                .roleHits(roleHits.get())
+                .roleMisses(roleMisses.get())
+                .build();
+    }
+
+    // A row loaded on a miss never replaces one a concurrent write has already put in place
+    private synchronized void putPaymentType(PaymentTypeSnapshot paymentType, boolean replace) {
+        if (!replace && paymentTypes.containsKey(paymentType.paymentTypeId())) {
+            return;
+        }
+        Map<UUID, PaymentTypeSnapshot> next = new LinkedHashMap<>(paymentTypes);
+        next.put(paymentType.paymentTypeId(), paymentType);
+        paymentTypes = Collections.unmodifiableMap(next);
+    }
+
+    private synchronized void removePaymentType(UUID paymentTypeId) {
+        Map<UUID, PaymentTypeSnapshot> next = new LinkedHashMap<>(paymentTypes);
+        next.remove(paymentTypeId);
+        paymentTypes = Collections.unmodifiableMap(next);
+    }
+
+    private synchronized void putRole(RoleSnapshot role, boolean replace) {
+        if (!replace && roles.containsKey(role.roleId())) {
+            return;
+        }
+        Map<UUID, RoleSnapshot> next = new LinkedHashMap<>(roles);
+        next.put(role.roleId(), role);
+        roles = Collections.unmodifiableMap(next);
+    }
+
+    private synchronized void removeRole(UUID roleId) {
+        Map<UUID, RoleSnapshot> next = new LinkedHashMap<>(roles);
+        next.remove(roleId);
+        roles = Collections.unmodifiableMap(next);
+    }
+
+    private static PaymentTypeSnapshot snapshotOf(PaymentType paymentType) {
+        return new PaymentTypeSnapshot(paymentType.getPaymentTypeId(), paymentType.getName(),
+                paymentType.getEnabledChannels(), paymentType.getIsActive(),
+                Arrays.stream(Channel.values()).filter(paymentType::isEnabledFor).collect(Collectors.toSet()));
+    }
+
+    private static RoleSnapshot snapshotOf(Role role) {
+        return new RoleSnapshot(role.getRoleId(), role.getName(), role.getDescription());
+    }
+
+    private static <T> Map<UUID, T> index(List<T> rows, Function<T, UUID> idOf) {
+        Map<UUID, T> map = new LinkedHashMap<>();
+        rows.forEach(row -> map.put(idOf.apply(row), row));
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Apply a cache change once the surrounding transaction commits, or right away without one
+     */
+    private void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
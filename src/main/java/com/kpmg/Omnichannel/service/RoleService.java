@@ -2,6 +2,7 @@ package com.kpmg.omnichannel.service;
 
 import com.kpmg.omnichannel.dto.RoleRequest;
 import com.kpmg.omnichannel.dto.RoleResponse;
+import com.kpmg.omnichannel.dto.RoleSnapshot;
 import com.kpmg.omnichannel.exception.ResourceAlreadyExistsException;
 import com.kpmg.omnichannel.exception.ResourceNotFoundException;
 import com.kpmg.omnichannel.model.Role;
@@ -30,6 +31,12 @@ public class RoleService {
     @Autowired
     private UserRoleRepository userRoleRepository;
 
+    @Autowired
+    private TransactionLimitResolver limitResolver;
+
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
     @Transactional
     public RoleResponse createRole(RoleRequest request) {
         if (roleRepository.existsByName(request.getName())) {
@@ -41,17 +48,18 @@ public class RoleService {
         role.setDescription(request.getDescription());
 
         Role savedRole = roleRepository.save(role);
+        referenceDataCache.roleSaved(savedRole);
         return convertToResponse(savedRole);
     }
 
     public RoleResponse getRoleById(UUID roleId) {
-        Role role = roleRepository.findById(roleId)
+        RoleSnapshot role = referenceDataCache.findRole(roleId)
                 .orElseThrow(() -> new ResourceNotFoundException("Role not found with id: " + roleId));
         return convertToResponse(role);
     }
 
     public List<RoleResponse> getAllRoles() {
-        return roleRepository.findAll().stream()
+        return referenceDataCache.getAllRoles().stream()
                 .map(this::convertToResponse)
                 .collect(Collectors.toList());
     }
@@ -69,6 +77,7 @@ public class RoleService {
         role.setDescription(request.getDescription());
 
         Role updatedRole = roleRepository.save(role);
+        referenceDataCache.roleSaved(updatedRole);
         return convertToResponse(updatedRole);
     }
 
@@ -77,6 +86,8 @@ public class RoleService {
         Role role = roleRepository.findById(roleId)
                 .orElseThrow(() -> new ResourceNotFoundException("Role not found with id: " + roleId));
         roleRepository.delete(role);
+        limitResolver.roleDeleted(roleId);
+        referenceDataCache.roleDeleted(roleId);
     }
 
     @Transactional
@@ -84,7 +95,7 @@ public class RoleService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
 
-        Role role = roleRepository.findById(roleId)
+        RoleSnapshot role = referenceDataCache.findRole(roleId)
                 .orElseThrow(() -> new ResourceNotFoundException("Role not found with id: " + roleId));
 
         if (userRoleRepository.existsByUser_UserIdAndRole_RoleId(userId, roleId)) {
@@ -93,8 +104,9 @@ public class RoleService {
 
         UserRole userRole = new UserRole();
         userRole.setUser(user);
-        userRole.setRole(role);
+        userRole.setRole(roleRepository.getReferenceById(role.roleId()));
         userRoleRepository.save(userRole);
+        limitResolver.roleAssigned(userId, roleId);
     }
 
     @Transactional
@@ -104,6 +116,15 @@ public class RoleService {
         }
 
         userRoleRepository.deleteByUser_UserIdAndRole_RoleId(userId, roleId);
+        limitResolver.roleRemoved(userId, roleId);
+    }
+
+    private RoleResponse convertToResponse(RoleSnapshot role) {
+        return RoleResponse.builder()
+                .roleId(role.roleId())
+                .name(role.name())
+                .description(role.description())
+                .build();
     }
 
     private RoleResponse convertToResponse(Role role) {
@@ -0,0 +1,141 @@
+package com.kpmg.omnichannel.service;
+
+import com.kpmg.omnichannel.dto.report.StatusAggregateDTO;
+import com.kpmg.omnichannel.model.TransactionStatus;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-status aggregates folded from a single grouped query.
+ * Every report figure (counts, sums, rates, min/max/avg) is derived from here
+ * instead of issuing one query per figure.
+ */
+public final class TransactionAggregates {
+
+    private final Map<TransactionStatus, StatusAggregateDTO> byStatus = new EnumMap<>(TransactionStatus.class);
+    private long totalCount;
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+
+    private TransactionAggregates() {
+    }
+
+    public static TransactionAggregates empty() {
+        return new TransactionAggregates();
+    }
+
+    public static TransactionAggregates of(Collection<StatusAggregateDTO> rows) {
+        TransactionAggregates aggregates = new TransactionAggregates();
+        rows.forEach(aggregates::add);
+        return aggregates;
+    }
+
+    /**
+     * Merge a row into the aggregates. Rows for the same status are summed.
+     */
+    public void add(StatusAggregateDTO row) {
+        long count = row.getCount() != null ? row.getCount() : 0L;
+        BigDecimal amount = row.getTotalAmount() != null ? row.getTotalAmount() : BigDecimal.ZERO;
+
+        byStatus.merge(row.getStatus(),
+                new StatusAggregateDTO(row.getStatus(), count, amount, row.getMinAmount(), row.getMaxAmount()),
+                (existing, added) -> new StatusAggregateDTO(
+                        existing.getStatus(),
+                        existing.getCount() + added.getCount(),
+                        existing.getTotalAmount().add(added.getTotalAmount()),
+                        min(existing.getMinAmount(), added.getMinAmount()),
+                        max(existing.getMaxAmount(), added.getMaxAmount())));
+
+        totalCount += count;
+        totalAmount = totalAmount.add(amount);
+        minAmount = min(minAmount, row.getMinAmount());
+        maxAmount = max(maxAmount, row.getMaxAmount());
+    }
+
+    /**
+     * Merge every status row of another aggregate into this one
+     */
+    public void addAll(TransactionAggregates other) {
+        other.byStatus.values().forEach(this::add);
+    }
+
+    public long count() {
+        return totalCount;
+    }
+
+    public long count(TransactionStatus status) {
+        StatusAggregateDTO row = byStatus.get(status);
+        return row != null ? row.getCount() : 0L;
+    }
+
+    public BigDecimal amount() {
+        return totalAmount;
+    }
+
+    public BigDecimal amount(TransactionStatus status) {
+        StatusAggregateDTO row = byStatus.get(status);
+        return row != null ? row.getTotalAmount() : BigDecimal.ZERO;
+    }
+
+    public BigDecimal minAmount() {
+        return minAmount != null ? minAmount : BigDecimal.ZERO;
+    }
+
+    public BigDecimal maxAmount() {
+        return maxAmount != null ? maxAmount : BigDecimal.ZERO;
+    }
+
+    public BigDecimal averageAmount() {
+        return totalCount > 0
+                ? totalAmount.divide(BigDecimal.valueOf(totalCount), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+    }
+
+    /**
+     * Percentage of all transactions in the given status, rounded to two decimals
+     */
+    public double rate(TransactionStatus status) {
+        return percentage(count(status));
+    }
+
+    public double percentage(long part) {
+        double rate = totalCount > 0 ? (part * 100.0) / totalCount : 0.0;
+        return Math.round(rate * 100.0) / 100.0;
+    }
+
+    public Map<String, Long> countBreakdown() {
+        Map<String, Long> breakdown = new LinkedHashMap<>();
+        for (TransactionStatus status : TransactionStatus.values()) {
+            breakdown.put(status.name(), count(status));
+        }
+        return breakdown;
+    }
+
+    public Map<String, BigDecimal> amountBreakdown() {
+        Map<String, BigDecimal> breakdown = new LinkedHashMap<>();
+        for (TransactionStatus status : TransactionStatus.values()) {
+            breakdown.put(status.name(), amount(status));
+        }
+        return breakdown;
+    }
+
+    private static BigDecimal min(BigDecimal a, BigDecimal b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null ? a : a.min(b);
+    }
+
+    private static BigDecimal max(BigDecimal a, BigDecimal b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null ? a : a.max(b);
+    }
+}
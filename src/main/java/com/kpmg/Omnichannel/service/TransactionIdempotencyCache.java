@@ -0,0 +1,71 @@
+package com.kpmg.omnichannel.service;
+
+import com.kpmg.omnichannel.dto.TransactionResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Size- and TTL-bounded cache of responses to POST /api/transactions, keyed by
+ * (user, Idempotency-Key). Entries are kept in insertion order, so both the oldest entry
+ * (size bound) and expired entries (TTL) are evicted from the head.
+ */
+@Component
+public class TransactionIdempotencyCache {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    private final LinkedHashMap<CacheKey, CachedResponse> entries = new LinkedHashMap<>();
+
+    public TransactionIdempotencyCache(@Value("${omnichannel.idempotency.max-entries:10000}") int maxEntries,
+                                       @Value("${omnichannel.idempotency.ttl-seconds:86400}") long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+    }
+
+    public synchronized Optional<TransactionResponse> get(UUID userId, String idempotencyKey) {
+        CachedResponse cached = entries.get(new CacheKey(userId, idempotencyKey));
+        if (cached == null) {
+            return Optional.empty();
+        }
+        if (cached.expiresAt() - System.nanoTime() <= 0) {
+            entries.remove(new CacheKey(userId, idempotencyKey));
+            return Optional.empty();
+        }
+        return Optional.of(cached.response());
+    }
+
+    public synchronized void put(UUID userId, String idempotencyKey, TransactionResponse response) {
+        long now = System.nanoTime();
+        evictExpired(now);
+        entries.put(new CacheKey(userId, idempotencyKey), new CachedResponse(response, now + ttlNanos));
+        if (entries.size() > maxEntries) {
+            Iterator<CacheKey> eldest = entries.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Map.Entry<CacheKey, CachedResponse>> it = entries.entrySet().iterator();
+        while (it.hasNext() && it.next().getValue().expiresAt() - now <= 0) {
+            it.remove();
+        }
+    }
+
+    private record CacheKey(UUID userId, String idempotencyKey) {
+    }
+
+    private record CachedResponse(TransactionResponse response, long expiresAt) {
+    }
+}
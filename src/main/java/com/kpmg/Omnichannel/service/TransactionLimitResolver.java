@@ -0,0 +1,177 @@
+package com.kpmg.omnichannel.service;
+
+import com.kpmg.omnichannel.model.TransactionLimit;
+import com.kpmg.omnichannel.repository.TransactionLimitRepository;
+import com.kpmg.omnichannel.repository.UserRoleRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory resolver of the effective transaction limit per (user, payment type).
+ *
+ * Limits and user role assignments are loaded once at startup and kept current by
+ * {@link TransactionLimitService} and {@link RoleService}, whose changes are applied when their
+ * transaction commits, so resolving a limit on the payment hot path never queries the database.
+ *
+ * Resolution: a limit set directly on the user wins field by field; any field it leaves
+ * empty falls back to the limits of the user's roles, where the most restrictive role applies.
+ */
+@Component
+@Slf4j
+public class TransactionLimitResolver {
+
+    private final TransactionLimitRepository limitRepository;
+    private final UserRoleRepository userRoleRepository;
+
+    private final Map<LimitKey, EffectiveLimit> userLimits = new ConcurrentHashMap<>();
+    private final Map<LimitKey, EffectiveLimit> roleLimits = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<UUID>> roleIdsByUser = new ConcurrentHashMap<>();
+
+    // Memoized effective limits; replaced wholesale on any change so a stale entry can never survive
+    private volatile Map<LimitKey, EffectiveLimit> effectiveLimits = new ConcurrentHashMap<>();
+
+    public TransactionLimitResolver(TransactionLimitRepository limitRepository,
+                                    UserRoleRepository userRoleRepository) {
+        this.limitRepository = limitRepository;
+        this.userRoleRepository = userRoleRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        userLimits.clear();
+        roleLimits.clear();
+        roleIdsByUser.clear();
+
+        limitRepository.findAll().forEach(this::put);
+        for (Object[] row : userRoleRepository.findAllUserIdAndRoleIds()) {
+            roleIdsByUser.computeIfAbsent((UUID) row[0], id -> ConcurrentHashMap.newKeySet()).add((UUID) row[1]);
+        }
+        invalidate();
+        log.info("Loaded {} user and {} role transaction limits", userLimits.size(), roleLimits.size());
+    }
+
+    /**
+     * Get the effective limit for a user and payment type
+     */
+    public EffectiveLimit resolve(UUID userId, UUID paymentTypeId) {
+        return effectiveLimits.computeIfAbsent(new LimitKey(userId, paymentTypeId), this::compute);
+    }
+
+    public void limitSaved(TransactionLimit limit) {
+        afterCommit(() -> {
+            put(limit);
+            invalidate();
+        });
+    }
+
+    public void roleAssigned(UUID userId, UUID roleId) {
+        afterCommit(() -> {
+            roleIdsByUser.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(roleId);
+            invalidate();
+        });
+    }
+
+    public void roleRemoved(UUID userId, UUID roleId) {
+        afterCommit(() -> {
+            Set<UUID> roleIds = roleIdsByUser.get(userId);
+            if (roleIds != null) {
+                roleIds.remove(roleId);
+            }
+            invalidate();
+        });
+    }
+
+    public void roleDeleted(UUID roleId) {
+        afterCommit(() -> {
+            roleLimits.keySet().removeIf(key -> key.ownerId().equals(roleId));
+            roleIdsByUser.values().forEach(roleIds -> roleIds.remove(roleId));
+            invalidate();
+        });
+    }
+
+    private EffectiveLimit compute(LimitKey key) {
+        EffectiveLimit roleLimit = EffectiveLimit.NONE;
+        for (UUID roleId : roleIdsByUser.getOrDefault(key.ownerId(), Set.of())) {
+            EffectiveLimit limit = roleLimits.get(new LimitKey(roleId, key.paymentTypeId()));
+            if (limit != null) {
+                roleLimit = roleLimit.restrictTo(limit);
+            }
+        }
+        EffectiveLimit userLimit = userLimits.get(key);
+        return userLimit != null ? userLimit.orElse(roleLimit) : roleLimit;
+    }
+
+    private void put(TransactionLimit limit) {
+        EffectiveLimit values = new EffectiveLimit(limit.getPerTxnLimit(), limit.getDailyLimit(), limit.getMonthlyLimit());
+        UUID paymentTypeId = limit.getPaymentType().getPaymentTypeId();
+        if (limit.getUser() != null) {
+            userLimits.put(new LimitKey(limit.getUser().getUserId(), paymentTypeId), values);
+        } else if (limit.getRole() != null) {
+            roleLimits.put(new LimitKey(limit.getRole().getRoleId(), paymentTypeId), values);
+        }
+    }
+
+    private void invalidate() {
+        effectiveLimits = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Apply a change once the surrounding transaction commits, so a rolled-back change never
+     * becomes visible to limit checks
+     */
+    private void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    /**
+     * Resolved limits; a null field means no limit of that kind applies
+     */
+    public record EffectiveLimit(BigDecimal perTxnLimit, BigDecimal dailyLimit, BigDecimal monthlyLimit) {
+
+        public static final EffectiveLimit NONE = new EffectiveLimit(null, null, null);
+
+        EffectiveLimit restrictTo(EffectiveLimit other) {
+            return new EffectiveLimit(min(perTxnLimit, other.perTxnLimit),
+                    min(dailyLimit, other.dailyLimit),
+                    min(monthlyLimit, other.monthlyLimit));
+        }
+
+        EffectiveLimit orElse(EffectiveLimit fallback) {
+            return new EffectiveLimit(perTxnLimit != null ? perTxnLimit : fallback.perTxnLimit,
+                    dailyLimit != null ? dailyLimit : fallback.dailyLimit,
+                    monthlyLimit != null ? monthlyLimit : fallback.monthlyLimit);
+        }
+
+        private static BigDecimal min(BigDecimal a, BigDecimal b) {
+            if (a == null) {
+                return b;
+            }
+            return b == null ? a : a.min(b);
+        }
+    }
+
+    // ownerId is a user id or a role id depending on the map the key belongs to
+    private record LimitKey(UUID ownerId, UUID paymentTypeId) {
+    }
+}
@@ -25,6 +25,7 @@ public class TransactionLimitService {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PaymentTypeRepository paymentTypeRepository;
+    private final TransactionLimitResolver limitResolver;
 
     public TransactionLimitResponse createTransactionLimit(TransactionLimitRequest request) {
         TransactionLimit limit = new TransactionLimit();
@@ -50,6 +51,7 @@ public class TransactionLimitService {
         limit.setMonthlyLimit(request.getMonthlyLimit());
 
         TransactionLimit savedLimit = transactionLimitRepository.save(limit);
+        limitResolver.limitSaved(savedLimit);
         return mapToResponse(savedLimit);
     }
 
@@ -68,6 +70,7 @@ public class TransactionLimitService {
         limit.setMonthlyLimit(request.getMonthlyLimit());
 
         TransactionLimit updatedLimit = transactionLimitRepository.save(limit);
+        limitResolver.limitSaved(updatedLimit);
         return mapToResponse(updatedLimit);
     }
 
@@ -1,30 +1,42 @@
 package com.kpmg.omnichannel.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kpmg.omnichannel.dto.report.*;
+import com.kpmg.omnichannel.exception.InvalidCursorException;
 import com.kpmg.omnichannel.exception.ResourceNotFoundException;
-import com.kpmg.omnichannel.model.PaymentType;
 import com.kpmg.omnichannel.model.Transaction;
 import com.kpmg.omnichannel.model.TransactionStatus;
 import com.kpmg.omnichannel.model.User;
-import com.kpmg.omnichannel.repository.PaymentTypeRepository;
+import com.kpmg.omnichannel.repository.TransactionDailyRollupRepository;
 import com.kpmg.omnichannel.repository.TransactionRepository;
+import com.kpmg.omnichannel.repository.TransactionSpecifications;
 import com.kpmg.omnichannel.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.Month;
 import java.time.format.TextStyle;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,7 +46,11 @@ public class TransactionReportService {
 
     private final TransactionRepository transactionRepository;
     private final UserRepository userRepository;
-    private final PaymentTypeRepository paymentTypeRepository;
+    private final TransactionDailyRollupRepository rollupRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${omnichannel.reports.export.fetch-size:500}")
+    private int exportFetchSize;
 
     // ==================== TRANSACTION HISTORY ====================
 
@@ -42,41 +58,26 @@ public class TransactionReportService {
      * Get transaction history with filters and pagination
      */
     public PaginatedTransactionHistoryDTO getTransactionHistory(TransactionHistoryRequest request) {
+        if (request.getCursor() != null) {
+            return getTransactionHistoryPage(request);
+        }
+
         int page = request.getPage() != null ? request.getPage() : 0;
         int size = request.getSize() != null ? request.getSize() : 10;
         String sortBy = request.getSortBy() != null ? request.getSortBy() : "createdAt";
         String sortDirection = request.getSortDirection() != null ? request.getSortDirection() : "DESC";
 
+        // transactionId breaks ties so the order is total and pages never overlap
         Sort sort = sortDirection.equalsIgnoreCase("ASC") 
-                ? Sort.by(sortBy).ascending() 
-                : Sort.by(sortBy).descending();
+                ? Sort.by(sortBy, "transactionId").ascending() 
+                : Sort.by(sortBy, "transactionId").descending();
         Pageable pageable = PageRequest.of(page, size, sort);
 
-        LocalDateTime startDateTime = request.getStartDate() != null 
-                ? request.getStartDate().atStartOfDay() 
-                : null;
-        LocalDateTime endDateTime = request.getEndDate() != null 
-                ? request.getEndDate().atTime(LocalTime.MAX) 
-                : null;
-
-        Page<Transaction> transactionPage = transactionRepository.findByFilters(
-                request.getUserId(),
-                request.getMerchantId(),
-                request.getPaymentTypeId(),
-                request.getStatus(),
-                startDateTime,
-                endDateTime,
-                request.getMinAmount(),
-                request.getMaxAmount(),
-                pageable
-        );
-
-        List<TransactionHistoryDTO> transactions = transactionPage.getContent().stream()
-                .map(this::mapToTransactionHistoryDTO)
-                .collect(Collectors.toList());
+        Page<TransactionHistoryDTO> transactionPage = transactionRepository.findHistoryPage(
+                TransactionSpecifications.matching(request), pageable);
 
         return PaginatedTransactionHistoryDTO.builder()
-                .transactions(transactions)
+                .transactions(transactionPage.getContent())
                 .currentPage(transactionPage.getNumber())
                 .totalPages(transactionPage.getTotalPages())
                 .totalElements(transactionPage.getTotalElements())
@@ -86,13 +87,88 @@ public class TransactionReportService {
                 .build();
     }
 
+    /**
+     * Get transaction history by keyset paging over (createdAt, transactionId), newest first
+     * unless ASC is requested. Every page is an index range scan starting at the cursor, so deep
+     * pages cost the same as the first one; the total is only counted when explicitly requested.
+     */
+    private PaginatedTransactionHistoryDTO getTransactionHistoryPage(TransactionHistoryRequest request) {
+        int size = request.getSize() != null ? request.getSize() : 10;
+        boolean descending = !"ASC".equalsIgnoreCase(request.getSortDirection());
+        HistoryCursor after = request.getCursor().isBlank() ? null : HistoryCursor.decode(request.getCursor());
+
+        Specification<Transaction> filters = TransactionSpecifications.matching(request);
+        Specification<Transaction> pageSpec = filters;
+        if (after != null) {
+            pageSpec = pageSpec.and(TransactionSpecifications.after(after.createdAt(), after.transactionId(), descending));
+        }
+        Sort sort = descending
+                ? Sort.by("createdAt", "transactionId").descending()
+                : Sort.by("createdAt", "transactionId").ascending();
+
+        Slice<TransactionHistoryDTO> slice = transactionRepository.findHistorySlice(pageSpec, PageRequest.of(0, size, sort));
+
+        List<TransactionHistoryDTO> content = slice.getContent();
+        String nextCursor = null;
+        if (slice.hasNext() && !content.isEmpty()) {
+            TransactionHistoryDTO last = content.get(content.size() - 1);
+            nextCursor = new HistoryCursor(last.getTransactionDate(), last.getTransactionId()).encode();
+        }
+
+        Long totalElements = null;
+        Integer totalPages = null;
+        if (Boolean.TRUE.equals(request.getIncludeTotal())) {
+            totalElements = transactionRepository.count(filters);
+            totalPages = (int) ((totalElements + size - 1) / size);
+        }
+
+        return PaginatedTransactionHistoryDTO.builder()
+                .transactions(content)
+                .totalPages(totalPages)
+                .totalElements(totalElements)
+                .pageSize(size)
+                .hasNext(slice.hasNext())
+                .hasPrevious(after != null)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
     /**
      * Get all transaction history (no pagination)
      */
     public List<TransactionHistoryDTO> getAllTransactionHistory() {
-        return transactionRepository.findAll(Sort.by(Sort.Direction.DESC, "createdAt")).stream()
-                .map(this::mapToTransactionHistoryDTO)
-                .collect(Collectors.toList());
+        return transactionRepository.findAllHistory();
+    }
+
+    /**
+     * Write all transactions matching the filters to the stream, newest first, as NDJSON or CSV.
+     * Rows are read through a forward-only cursor and written as they arrive, so memory use does
+     * not depend on the number of rows.
+     */
+    public void exportTransactionHistory(TransactionHistoryRequest request, HistoryExportFormat format,
+                                         OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == HistoryExportFormat.CSV) {
+            writer.write("transactionId,userName,merchantName,paymentTypeName,amount,currency,status,transactionDate\n");
+        }
+        try {
+            transactionRepository.scrollHistory(TransactionSpecifications.matching(request),
+                    Sort.by("createdAt", "transactionId").descending(), exportFetchSize, row -> {
+                        try {
+                            if (format == HistoryExportFormat.CSV) {
+                                writeCsvRow(writer, row);
+                            } else {
+                                writer.write(objectMapper.writeValueAsString(row));
+                                writer.write('\n');
+                            }
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
     }
 
     // ==================== DAILY REPORTS ====================
@@ -101,39 +177,20 @@ public class TransactionReportService {
      * Get daily report for a specific date
      */
     public DailyReportDTO getDailyReport(LocalDate date) {
-        LocalDateTime startOfDay = date.atStartOfDay();
-        LocalDateTime endOfDay = date.atTime(LocalTime.MAX);
-
-        Long totalTransactions = transactionRepository.countByDateRange(startOfDay, endOfDay);
-        Long successfulTransactions = transactionRepository.countByDateRangeAndStatus(startOfDay, endOfDay, TransactionStatus.SUCCESS);
-        Long failedTransactions = transactionRepository.countByDateRangeAndStatus(startOfDay, endOfDay, TransactionStatus.FAILED);
-        BigDecimal totalAmount = transactionRepository.sumAmountByDateRange(startOfDay, endOfDay);
-        BigDecimal successfulAmount = transactionRepository.sumAmountByDateRangeAndStatus(startOfDay, endOfDay, TransactionStatus.SUCCESS);
-
-        Double successRate = totalTransactions > 0 
-                ? (successfulTransactions * 100.0) / totalTransactions 
-                : 0.0;
-
-        return DailyReportDTO.builder()
-                .date(date)
-                .totalTransactions(totalTransactions)
-                .successfulTransactions(successfulTransactions)
-                .failedTransactions(failedTransactions)
-                .totalAmount(totalAmount)
-                .successfulAmount(successfulAmount)
-                .successRate(Math.round(successRate * 100.0) / 100.0)
-                .build();
+        return buildDailyReport(date, aggregateRollups(date, date));
     }
 
     /**
-     * Get daily reports for a date range
+     * Get daily reports for a date range (one bucketed query, empty days filled in memory)
      */
     public List<DailyReportDTO> getDailyReports(LocalDate startDate, LocalDate endDate) {
+        Map<LocalDate, TransactionAggregates> byDay = bucketRollups(startDate, endDate, date -> date);
+
         List<DailyReportDTO> reports = new ArrayList<>();
         LocalDate currentDate = startDate;
         
         while (!currentDate.isAfter(endDate)) {
-            reports.add(getDailyReport(currentDate));
+            reports.add(buildDailyReport(currentDate, byDay.getOrDefault(currentDate, TransactionAggregates.empty())));
             currentDate = currentDate.plusDays(1);
         }
         
@@ -148,48 +205,17 @@ public class TransactionReportService {
     public MonthlyReportDTO getMonthlyReport(int year, int month) {
         LocalDate startOfMonth = LocalDate.of(year, month, 1);
         LocalDate endOfMonth = startOfMonth.withDayOfMonth(startOfMonth.lengthOfMonth());
-        LocalDateTime startDateTime = startOfMonth.atStartOfDay();
-        LocalDateTime endDateTime = endOfMonth.atTime(LocalTime.MAX);
 
-        Long totalTransactions = transactionRepository.countByDateRange(startDateTime, endDateTime);
-        Long successfulTransactions = transactionRepository.countByDateRangeAndStatus(startDateTime, endDateTime, TransactionStatus.SUCCESS);
-        Long failedTransactions = transactionRepository.countByDateRangeAndStatus(startDateTime, endDateTime, TransactionStatus.FAILED);
-        BigDecimal totalAmount = transactionRepository.sumAmountByDateRange(startDateTime, endDateTime);
-        BigDecimal successfulAmount = transactionRepository.sumAmountByDateRangeAndStatus(startDateTime, endDateTime, TransactionStatus.SUCCESS);
-
-        Double successRate = totalTransactions > 0 
-                ? (successfulTransactions * 100.0) / totalTransactions 
-                : 0.0;
-        
-        BigDecimal avgAmount = totalTransactions > 0 
-                ? totalAmount.divide(BigDecimal.valueOf(totalTransactions), 2, RoundingMode.HALF_UP) 
-                : BigDecimal.ZERO;
-
-        String monthName = Month.of(month).getDisplayName(TextStyle.FULL, Locale.ENGLISH);
-
-        return MonthlyReportDTO.builder()
-                .year(year)
-                .month(month)
-                .monthName(monthName)
-                .totalTransactions(totalTransactions)
-                .successfulTransactions(successfulTransactions)
-                .failedTransactions(failedTransactions)
-                .totalAmount(totalAmount)
-                .successfulAmount(successfulAmount)
-                .successRate(Math.round(successRate * 100.0) / 100.0)
-                .averageTransactionAmount(avgAmount)
-                .build();
+        return buildMonthlyReport(year, month, aggregateRollups(startOfMonth, endOfMonth));
     }
 
     /**
-     * Get monthly reports for a year
+     * Get monthly reports for a year (one bucketed query, grouped into months in memory)
      */
     public List<MonthlyReportDTO> getMonthlyReportsForYear(int year) {
-        List<MonthlyReportDTO> reports = new ArrayList<>();
-        for (int month = 1; month <= 12; month++) {
-            reports.add(getMonthlyReport(year, month));
-        }
-        return reports;
+        Map<Integer, TransactionAggregates> byMonth = bucketRollups(
+                LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31), LocalDate::getMonthValue);
+        return buildMonthlyReports(year, byMonth);
     }
 
     // ==================== YEARLY REPORTS ====================
@@ -198,35 +224,22 @@ public class TransactionReportService {
      * Get yearly report with monthly breakdown
      */
     public YearlyReportDTO getYearlyReport(int year) {
-        LocalDateTime startOfYear = LocalDate.of(year, 1, 1).atStartOfDay();
-        LocalDateTime endOfYear = LocalDate.of(year, 12, 31).atTime(LocalTime.MAX);
-
-        Long totalTransactions = transactionRepository.countByDateRange(startOfYear, endOfYear);
-        Long successfulTransactions = transactionRepository.countByDateRangeAndStatus(startOfYear, endOfYear, TransactionStatus.SUCCESS);
-        Long failedTransactions = transactionRepository.countByDateRangeAndStatus(startOfYear, endOfYear, TransactionStatus.FAILED);
-        BigDecimal totalAmount = transactionRepository.sumAmountByDateRange(startOfYear, endOfYear);
-        BigDecimal successfulAmount = transactionRepository.sumAmountByDateRangeAndStatus(startOfYear, endOfYear, TransactionStatus.SUCCESS);
-
-        Double successRate = totalTransactions > 0 
-                ? (successfulTransactions * 100.0) / totalTransactions 
-                : 0.0;
-        
-        BigDecimal avgAmount = totalTransactions > 0 
-                ? totalAmount.divide(BigDecimal.valueOf(totalTransactions), 2, RoundingMode.HALF_UP) 
-                : BigDecimal.ZERO;
+        Map<Integer, TransactionAggregates> byMonth = bucketRollups(
+                LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31), LocalDate::getMonthValue);
 
-        List<MonthlyReportDTO> monthlyBreakdown = getMonthlyReportsForYear(year);
+        TransactionAggregates aggregates = TransactionAggregates.empty();
+        byMonth.values().forEach(aggregates::addAll);
 
         return YearlyReportDTO.builder()
                 .year(year)
-                .totalTransactions(totalTransactions)
-                .successfulTransactions(successfulTransactions)
-                .failedTransactions(failedTransactions)
-                .totalAmount(totalAmount)
-                .successfulAmount(successfulAmount)
-                .successRate(Math.round(successRate * 100.0) / 100.0)
-                .averageTransactionAmount(avgAmount)
-                .monthlyBreakdown(monthlyBreakdown)
+                .totalTransactions(aggregates.count())
+                .successfulTransactions(aggregates.count(TransactionStatus.SUCCESS))
+                .failedTransactions(aggregates.count(TransactionStatus.FAILED))
+                .totalAmount(aggregates.amount())
+                .successfulAmount(aggregates.amount(TransactionStatus.SUCCESS))
+                .successRate(aggregates.rate(TransactionStatus.SUCCESS))
+                .averageTransactionAmount(aggregates.averageAmount())
+                .monthlyBreakdown(buildMonthlyReports(year, byMonth))
                 .build();
     }
 
@@ -239,36 +252,38 @@ public class TransactionReportService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
 
-        Long totalTransactions = transactionRepository.countByUserId(userId);
-        Long successfulTransactions = transactionRepository.countByUserIdAndStatus(userId, TransactionStatus.SUCCESS);
-        Long failedTransactions = transactionRepository.countByUserIdAndStatus(userId, TransactionStatus.FAILED);
-        BigDecimal totalAmount = transactionRepository.sumAmountByUserId(userId);
-        BigDecimal successfulAmount = transactionRepository.sumAmountByUserIdAndStatus(userId, TransactionStatus.SUCCESS);
-
-        Double successRate = totalTransactions > 0 
-                ? (successfulTransactions * 100.0) / totalTransactions 
-                : 0.0;
+        // Every figure of the report comes from one (payment type, status) grouped query
+        List<PaymentTypeTotals> usageByType = groupByPaymentType(
+                transactionRepository.aggregateByPaymentTypeAndStatusForUser(userId));
+        TransactionAggregates aggregates = TransactionAggregates.empty();
+        usageByType.forEach(totals -> aggregates.addAll(totals.aggregates()));
 
         // Get payment type usage
-        List<PaymentTypeUsageDTO> paymentTypeUsage = getPaymentTypeUsageForUser(userId, totalTransactions);
+        List<PaymentTypeUsageDTO> paymentTypeUsage = usageByType.stream()
+                .map(totals -> PaymentTypeUsageDTO.builder()
+                        .paymentTypeName(totals.paymentTypeName())
+                        .transactionCount(totals.aggregates().count())
+                        .totalAmount(totals.aggregates().amount())
+                        .usagePercentage(aggregates.percentage(totals.aggregates().count()))
+                        .build())
+                .sorted((a, b) -> Long.compare(b.getTransactionCount(), a.getTransactionCount()))
+                .collect(Collectors.toList());
 
         // Get recent transactions
-        List<Transaction> recentTransactions = transactionRepository.findRecentByUserId(userId, PageRequest.of(0, 10));
-        List<TransactionHistoryDTO> recentTransactionDTOs = recentTransactions.stream()
-                .map(this::mapToTransactionHistoryDTO)
-                .collect(Collectors.toList());
+        List<TransactionHistoryDTO> recentTransactionDTOs =
+                transactionRepository.findRecentHistoryByUserId(userId, PageRequest.of(0, 10));
 
         return UserTransactionReportDTO.builder()
                 .userId(userId)
                 .userName(user.getFirstName() + " " + user.getLastName())
                 .userEmail(user.getEmail())
                 .userType(user.getUserType().name())
-                .totalTransactions(totalTransactions)
-                .successfulTransactions(successfulTransactions)
-                .failedTransactions(failedTransactions)
-                .totalAmount(totalAmount)
-                .successfulAmount(successfulAmount)
-                .successRate(Math.round(successRate * 100.0) / 100.0)
+                .totalTransactions(aggregates.count())
+                .successfulTransactions(aggregates.count(TransactionStatus.SUCCESS))
+                .failedTransactions(aggregates.count(TransactionStatus.FAILED))
+                .totalAmount(aggregates.amount())
+                .successfulAmount(aggregates.amount(TransactionStatus.SUCCESS))
+                .successRate(aggregates.rate(TransactionStatus.SUCCESS))
                 .paymentTypeUsage(paymentTypeUsage)
                 .recentTransactions(recentTransactionDTOs)
                 .build();
@@ -312,11 +327,11 @@ public class TransactionReportService {
      * Get analytics for all payment types
      */
     public List<PaymentTypeAnalyticsDTO> getPaymentTypeAnalytics() {
-        List<PaymentType> paymentTypes = paymentTypeRepository.findAll();
-        Long totalTransactionsOverall = transactionRepository.count();
+        List<PaymentTypeTotals> byType = groupByPaymentType(rollupRepository.aggregateByPaymentTypeAndStatus());
+        long totalTransactionsOverall = byType.stream().mapToLong(totals -> totals.aggregates().count()).sum();
 
-        return paymentTypes.stream()
-                .map(pt -> buildPaymentTypeAnalytics(pt, totalTransactionsOverall))
+        return byType.stream()
+                .map(totals -> buildPaymentTypeAnalytics(totals, totalTransactionsOverall))
                 .sorted((a, b) -> Long.compare(b.getTotalTransactions(), a.getTotalTransactions()))
                 .collect(Collectors.toList());
     }
@@ -325,11 +340,11 @@ public class TransactionReportService {
      * Get analytics for a specific payment type
      */
     public PaymentTypeAnalyticsDTO getPaymentTypeAnalyticsById(UUID paymentTypeId) {
-        PaymentType paymentType = paymentTypeRepository.findById(paymentTypeId)
+        PaymentTypeTotals totals = groupByPaymentType(rollupRepository.aggregateByPaymentTypeAndStatus(paymentTypeId))
+                .stream()
+                .findFirst()
                 .orElseThrow(() -> new ResourceNotFoundException("Payment type not found with id: " + paymentTypeId));
-
-        Long totalTransactionsOverall = transactionRepository.count();
-        return buildPaymentTypeAnalytics(paymentType, totalTransactionsOverall);
+        return buildPaymentTypeAnalytics(totals, rollupRepository.sumTransactionCountOfPaymentTypes());
     }
 
     // ==================== TRANSACTION METRICS ====================
@@ -338,53 +353,25 @@ public class TransactionReportService {
      * Get overall transaction metrics
      */
     public TransactionMetricsDTO getTransactionMetrics() {
-        Long totalTransactions = transactionRepository.count();
-        Long initiatedTransactions = transactionRepository.countByStatus(TransactionStatus.INITIATED);
-        Long processingTransactions = transactionRepository.countByStatus(TransactionStatus.PROCESSING);
-        Long successfulTransactions = transactionRepository.countByStatus(TransactionStatus.SUCCESS);
-        Long failedTransactions = transactionRepository.countByStatus(TransactionStatus.FAILED);
-
-        BigDecimal totalAmount = transactionRepository.sumTotalAmount();
-        BigDecimal successfulAmount = transactionRepository.sumAmountByStatus(TransactionStatus.SUCCESS);
-        BigDecimal failedAmount = transactionRepository.sumAmountByStatus(TransactionStatus.FAILED);
-        BigDecimal avgAmount = transactionRepository.averageAmount();
-        BigDecimal maxAmount = transactionRepository.maxAmount();
-        BigDecimal minAmount = transactionRepository.minAmount();
-
-        Double successRate = totalTransactions > 0 ? (successfulTransactions * 100.0) / totalTransactions : 0.0;
-        Double failureRate = totalTransactions > 0 ? (failedTransactions * 100.0) / totalTransactions : 0.0;
-        Double processingRate = totalTransactions > 0 ? (processingTransactions * 100.0) / totalTransactions : 0.0;
-
-        // Status breakdown
-        Map<String, Long> statusBreakdown = new LinkedHashMap<>();
-        statusBreakdown.put("INITIATED", initiatedTransactions);
-        statusBreakdown.put("PROCESSING", processingTransactions);
-        statusBreakdown.put("SUCCESS", successfulTransactions);
-        statusBreakdown.put("FAILED", failedTransactions);
-
-        Map<String, BigDecimal> statusAmountBreakdown = new LinkedHashMap<>();
-        statusAmountBreakdown.put("INITIATED", transactionRepository.sumAmountByStatus(TransactionStatus.INITIATED));
-        statusAmountBreakdown.put("PROCESSING", transactionRepository.sumAmountByStatus(TransactionStatus.PROCESSING));
-        statusAmountBreakdown.put("SUCCESS", successfulAmount);
-        statusAmountBreakdown.put("FAILED", failedAmount);
+        TransactionAggregates aggregates = TransactionAggregates.of(transactionRepository.aggregateByStatus());
 
         return TransactionMetricsDTO.builder()
-                .totalTransactions(totalTransactions)
-                .initiatedTransactions(initiatedTransactions)
-                .processingTransactions(processingTransactions)
-                .successfulTransactions(successfulTransactions)
-                .failedTransactions(failedTransactions)
-                .successRate(Math.round(successRate * 100.0) / 100.0)
-                .failureRate(Math.round(failureRate * 100.0) / 100.0)
-                .processingRate(Math.round(processingRate * 100.0) / 100.0)
-                .totalAmount(totalAmount)
-                .successfulAmount(successfulAmount)
-                .failedAmount(failedAmount)
-                .averageTransactionAmount(avgAmount)
-                .maxTransactionAmount(maxAmount)
-                .minTransactionAmount(minAmount)
-                .statusBreakdown(statusBreakdown)
-                .statusAmountBreakdown(statusAmountBreakdown)
+                .totalTransactions(aggregates.count())
+                .initiatedTransactions(aggregates.count(TransactionStatus.INITIATED))
+                .processingTransactions(aggregates.count(TransactionStatus.PROCESSING))
+                .successfulTransactions(aggregates.count(TransactionStatus.SUCCESS))
+                .failedTransactions(aggregates.count(TransactionStatus.FAILED))
+                .successRate(aggregates.rate(TransactionStatus.SUCCESS))
+                .failureRate(aggregates.rate(TransactionStatus.FAILED))
+                .processingRate(aggregates.rate(TransactionStatus.PROCESSING))
+                .totalAmount(aggregates.amount())
+                .successfulAmount(aggregates.amount(TransactionStatus.SUCCESS))
+                .failedAmount(aggregates.amount(TransactionStatus.FAILED))
+                .averageTransactionAmount(aggregates.averageAmount())
+                .maxTransactionAmount(aggregates.maxAmount())
+                .minTransactionAmount(aggregates.minAmount())
+                .statusBreakdown(aggregates.countBreakdown())
+                .statusAmountBreakdown(aggregates.amountBreakdown())
                 .build();
     }
 
@@ -392,42 +379,21 @@ public class TransactionReportService {
      * Get transaction metrics for a date range
      */
     public TransactionMetricsDTO getTransactionMetricsByDateRange(LocalDate startDate, LocalDate endDate) {
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
-
-        Long totalTransactions = transactionRepository.countByDateRange(startDateTime, endDateTime);
-        Long initiatedTransactions = transactionRepository.countByDateRangeAndStatus(startDateTime, endDateTime, TransactionStatus.INITIATED);
-        Long processingTransactions = transactionRepository.countByDateRangeAndStatus(startDateTime, endDateTime, TransactionStatus.PROCESSING);
-        Long successfulTransactions = transactionRepository.countByDateRangeAndStatus(startDateTime, endDateTime, TransactionStatus.SUCCESS);
-        Long failedTransactions = transactionRepository.countByDateRangeAndStatus(startDateTime, endDateTime, TransactionStatus.FAILED);
-
-        BigDecimal totalAmount = transactionRepository.sumAmountByDateRange(startDateTime, endDateTime);
-        BigDecimal successfulAmount = transactionRepository.sumAmountByDateRangeAndStatus(startDateTime, endDateTime, TransactionStatus.SUCCESS);
-        BigDecimal failedAmount = transactionRepository.sumAmountByDateRangeAndStatus(startDateTime, endDateTime, TransactionStatus.FAILED);
-
-        Double successRate = totalTransactions > 0 ? (successfulTransactions * 100.0) / totalTransactions : 0.0;
-        Double failureRate = totalTransactions > 0 ? (failedTransactions * 100.0) / totalTransactions : 0.0;
-        Double processingRate = totalTransactions > 0 ? (processingTransactions * 100.0) / totalTransactions : 0.0;
-
-        Map<String, Long> statusBreakdown = new LinkedHashMap<>();
-        statusBreakdown.put("INITIATED", initiatedTransactions);
-        statusBreakdown.put("PROCESSING", processingTransactions);
-        statusBreakdown.put("SUCCESS", successfulTransactions);
-        statusBreakdown.put("FAILED", failedTransactions);
+        TransactionAggregates aggregates = aggregateRollups(startDate, endDate);
 
         return TransactionMetricsDTO.builder()
-                .totalTransactions(totalTransactions)
-                .initiatedTransactions(initiatedTransactions)
-                .processingTransactions(processingTransactions)
-                .successfulTransactions(successfulTransactions)
-                .failedTransactions(failedTransactions)
-                .successRate(Math.round(successRate * 100.0) / 100.0)
-                .failureRate(Math.round(failureRate * 100.0) / 100.0)
-                .processingRate(Math.round(processingRate * 100.0) / 100.0)
-                .totalAmount(totalAmount)
-                .successfulAmount(successfulAmount)
-                .failedAmount(failedAmount)
-                .statusBreakdown(statusBreakdown)
+                .totalTransactions(aggregates.count())
+                .initiatedTransactions(aggregates.count(TransactionStatus.INITIATED))
+                .processingTransactions(aggregates.count(TransactionStatus.PROCESSING))
+                .successfulTransactions(aggregates.count(TransactionStatus.SUCCESS))
+                .failedTransactions(aggregates.count(TransactionStatus.FAILED))
+                .successRate(aggregates.rate(TransactionStatus.SUCCESS))
+                .failureRate(aggregates.rate(TransactionStatus.FAILED))
+                .processingRate(aggregates.rate(TransactionStatus.PROCESSING))
+                .totalAmount(aggregates.amount())
+                .successfulAmount(aggregates.amount(TransactionStatus.SUCCESS))
+                .failedAmount(aggregates.amount(TransactionStatus.FAILED))
+                .statusBreakdown(aggregates.countBreakdown())
                 .build();
     }
 
@@ -437,112 +403,150 @@ public class TransactionReportService {
      * Get overall transaction summary
      */
     public TransactionSummaryDTO getTransactionSummary() {
-        Long totalTransactions = transactionRepository.count();
-        Long successfulTransactions = transactionRepository.countByStatus(TransactionStatus.SUCCESS);
-        Long failedTransactions = transactionRepository.countByStatus(TransactionStatus.FAILED);
-        Long pendingTransactions = transactionRepository.countByStatus(TransactionStatus.INITIATED) 
-                + transactionRepository.countByStatus(TransactionStatus.PROCESSING);
-
-        BigDecimal totalAmount = transactionRepository.sumTotalAmount();
-        BigDecimal successfulAmount = transactionRepository.sumAmountByStatus(TransactionStatus.SUCCESS);
-        BigDecimal failedAmount = transactionRepository.sumAmountByStatus(TransactionStatus.FAILED);
-        BigDecimal avgAmount = transactionRepository.averageAmount();
-
-        Double successRate = totalTransactions > 0 ? (successfulTransactions * 100.0) / totalTransactions : 0.0;
-        Double failureRate = totalTransactions > 0 ? (failedTransactions * 100.0) / totalTransactions : 0.0;
+        TransactionAggregates aggregates = TransactionAggregates.of(transactionRepository.aggregateByStatus());
 
         return TransactionSummaryDTO.builder()
-                .totalTransactions(totalTransactions)
-                .successfulTransactions(successfulTransactions)
-                .failedTransactions(failedTransactions)
-                .pendingTransactions(pendingTransactions)
-                .totalAmount(totalAmount)
-                .successfulAmount(successfulAmount)
-                .failedAmount(failedAmount)
-                .successRate(Math.round(successRate * 100.0) / 100.0)
-                .failureRate(Math.round(failureRate * 100.0) / 100.0)
-                .averageTransactionAmount(avgAmount)
+                .totalTransactions(aggregates.count())
+                .successfulTransactions(aggregates.count(TransactionStatus.SUCCESS))
+                .failedTransactions(aggregates.count(TransactionStatus.FAILED))
+                .pendingTransactions(aggregates.count(TransactionStatus.INITIATED)
+                        + aggregates.count(TransactionStatus.PROCESSING))
+                .totalAmount(aggregates.amount())
+                .successfulAmount(aggregates.amount(TransactionStatus.SUCCESS))
+                .failedAmount(aggregates.amount(TransactionStatus.FAILED))
+                .successRate(aggregates.rate(TransactionStatus.SUCCESS))
+                .failureRate(aggregates.rate(TransactionStatus.FAILED))
+                .averageTransactionAmount(aggregates.averageAmount())
                 .build();
     }
 
     // ==================== HELPER METHODS ====================
 
-    private TransactionHistoryDTO mapToTransactionHistoryDTO(Transaction transaction) {
-        return TransactionHistoryDTO.builder()
-                .transactionId(transaction.getTransactionId())
-                .userName(transaction.getUser().getFirstName() + " " + transaction.getUser().getLastName())
-                .merchantName(transaction.getMerchant().getFirstName() + " " + transaction.getMerchant().getLastName())
-                .paymentTypeName(transaction.getPaymentType().getName())
-                .amount(transaction.getAmount())
-                .currency(transaction.getCurrency())
-                .status(transaction.getStatus())
-                .transactionDate(transaction.getCreatedAt())
+    private TransactionAggregates aggregateRollups(LocalDate startDate, LocalDate endDate) {
+        return TransactionAggregates.of(rollupRepository.aggregateByStatusAndDateRange(startDate, endDate));
+    }
+
+    /**
+     * Run one (date, status) grouped query over the range and fold the rows into buckets
+     */
+    private <K> Map<K, TransactionAggregates> bucketRollups(LocalDate startDate, LocalDate endDate,
+                                                            Function<LocalDate, K> bucketOf) {
+        Map<K, TransactionAggregates> buckets = new HashMap<>();
+        for (DatedStatusAggregateDTO row : rollupRepository.aggregateByDateAndStatus(startDate, endDate)) {
+            buckets.computeIfAbsent(bucketOf.apply(row.getDate()), key -> TransactionAggregates.empty())
+                    .add(row.toStatusAggregate());
+        }
+        return buckets;
+    }
+
+    private DailyReportDTO buildDailyReport(LocalDate date, TransactionAggregates aggregates) {
+        return DailyReportDTO.builder()
+                .date(date)
+                .totalTransactions(aggregates.count())
+                .successfulTransactions(aggregates.count(TransactionStatus.SUCCESS))
+                .failedTransactions(aggregates.count(TransactionStatus.FAILED))
+                .totalAmount(aggregates.amount())
+                .successfulAmount(aggregates.amount(TransactionStatus.SUCCESS))
+                .successRate(aggregates.rate(TransactionStatus.SUCCESS))
                 .build();
     }
 
-    private PaymentTypeAnalyticsDTO buildPaymentTypeAnalytics(PaymentType paymentType, Long totalTransactionsOverall) {
-        UUID paymentTypeId = paymentType.getPaymentTypeId();
-        
-        Long totalTransactions = transactionRepository.countByPaymentTypePaymentTypeId(paymentTypeId);
-        Long successfulTransactions = transactionRepository.countByPaymentTypeAndStatus(paymentTypeId, TransactionStatus.SUCCESS);
-        Long failedTransactions = transactionRepository.countByPaymentTypeAndStatus(paymentTypeId, TransactionStatus.FAILED);
-        BigDecimal totalAmount = transactionRepository.sumAmountByPaymentType(paymentTypeId);
-        BigDecimal successfulAmount = transactionRepository.sumAmountByPaymentTypeAndStatus(paymentTypeId, TransactionStatus.SUCCESS);
-
-        Double successRate = totalTransactions > 0 ? (successfulTransactions * 100.0) / totalTransactions : 0.0;
-        Double usagePercentage = totalTransactionsOverall > 0 ? (totalTransactions * 100.0) / totalTransactionsOverall : 0.0;
-        BigDecimal avgAmount = totalTransactions > 0 
-                ? totalAmount.divide(BigDecimal.valueOf(totalTransactions), 2, RoundingMode.HALF_UP) 
-                : BigDecimal.ZERO;
+    private List<MonthlyReportDTO> buildMonthlyReports(int year, Map<Integer, TransactionAggregates> byMonth) {
+        List<MonthlyReportDTO> reports = new ArrayList<>();
+        for (int month = 1; month <= 12; month++) {
+            reports.add(buildMonthlyReport(year, month, byMonth.getOrDefault(month, TransactionAggregates.empty())));
+        }
+        return reports;
+    }
+
+    private MonthlyReportDTO buildMonthlyReport(int year, int month, TransactionAggregates aggregates) {
+        String monthName = Month.of(month).getDisplayName(TextStyle.FULL, Locale.ENGLISH);
+
+        return MonthlyReportDTO.builder()
+                .year(year)
+                .month(month)
+                .monthName(monthName)
+                .totalTransactions(aggregates.count())
+                .successfulTransactions(aggregates.count(TransactionStatus.SUCCESS))
+                .failedTransactions(aggregates.count(TransactionStatus.FAILED))
+                .totalAmount(aggregates.amount())
+                .successfulAmount(aggregates.amount(TransactionStatus.SUCCESS))
+                .successRate(aggregates.rate(TransactionStatus.SUCCESS))
+                .averageTransactionAmount(aggregates.averageAmount())
+                .build();
+    }
+
+    private void writeCsvRow(Writer writer, TransactionHistoryDTO row) throws IOException {
+        writer.write(row.getTransactionId() + "," + csv(row.getUserName()) + "," + csv(row.getMerchantName()) + ","
+                + csv(row.getPaymentTypeName()) + "," + row.getAmount() + "," + csv(row.getCurrency()) + ","
+                + row.getStatus() + "," + row.getTransactionDate() + "\n");
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Position after the last row of a keyset page, encoded as URL-safe base64 of "createdAt|transactionId"
+     */
+    private record HistoryCursor(LocalDateTime createdAt, UUID transactionId) {
+
+        String encode() {
+            String raw = createdAt + "|" + transactionId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static HistoryCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                return new HistoryCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                        UUID.fromString(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new InvalidCursorException("Invalid history cursor: " + cursor);
+            }
+        }
+    }
+
+    private PaymentTypeAnalyticsDTO buildPaymentTypeAnalytics(PaymentTypeTotals totals, long totalTransactionsOverall) {
+        TransactionAggregates aggregates = totals.aggregates();
+        Double usagePercentage = totalTransactionsOverall > 0 ? (aggregates.count() * 100.0) / totalTransactionsOverall : 0.0;
 
         return PaymentTypeAnalyticsDTO.builder()
-                .paymentTypeId(paymentTypeId)
-                .paymentTypeName(paymentType.getName())
-                .totalTransactions(totalTransactions)
-                .successfulTransactions(successfulTransactions)
-                .failedTransactions(failedTransactions)
-                .totalAmount(totalAmount)
-                .successfulAmount(successfulAmount)
-                .successRate(Math.round(successRate * 100.0) / 100.0)
+                .paymentTypeId(totals.paymentTypeId())
+                .paymentTypeName(totals.paymentTypeName())
+                .totalTransactions(aggregates.count())
+                .successfulTransactions(aggregates.count(TransactionStatus.SUCCESS))
+                .failedTransactions(aggregates.count(TransactionStatus.FAILED))
+                .totalAmount(aggregates.amount())
+                .successfulAmount(aggregates.amount(TransactionStatus.SUCCESS))
+                .successRate(aggregates.rate(TransactionStatus.SUCCESS))
                 .usagePercentage(Math.round(usagePercentage * 100.0) / 100.0)
-                .averageTransactionAmount(avgAmount)
+                .averageTransactionAmount(aggregates.averageAmount())
                 .build();
     }
 
-    private List<PaymentTypeUsageDTO> getPaymentTypeUsageForUser(UUID userId, Long totalUserTransactions) {
-        List<PaymentType> paymentTypes = paymentTypeRepository.findAll();
-        List<Transaction> userTransactions = transactionRepository.findByUserUserId(userId);
-        
-        Map<UUID, Long> paymentTypeCount = userTransactions.stream()
-                .collect(Collectors.groupingBy(
-                        t -> t.getPaymentType().getPaymentTypeId(),
-                        Collectors.counting()
-                ));
-        
-        Map<UUID, BigDecimal> paymentTypeAmount = userTransactions.stream()
-                .collect(Collectors.groupingBy(
-                        t -> t.getPaymentType().getPaymentTypeId(),
-                        Collectors.reducing(BigDecimal.ZERO, Transaction::getAmount, BigDecimal::add)
-                ));
-
-        return paymentTypes.stream()
-                .filter(pt -> paymentTypeCount.containsKey(pt.getPaymentTypeId()))
-                .map(pt -> {
-                    Long count = paymentTypeCount.getOrDefault(pt.getPaymentTypeId(), 0L);
-                    BigDecimal amount = paymentTypeAmount.getOrDefault(pt.getPaymentTypeId(), BigDecimal.ZERO);
-                    Double usagePercentage = totalUserTransactions > 0 
-                            ? (count * 100.0) / totalUserTransactions 
-                            : 0.0;
-                    
-                    return PaymentTypeUsageDTO.builder()
-                            .paymentTypeName(pt.getName())
-                            .transactionCount(count)
-                            .totalAmount(amount)
-                            .usagePercentage(Math.round(usagePercentage * 100.0) / 100.0)
-                            .build();
-                })
-                .sorted((a, b) -> Long.compare(b.getTransactionCount(), a.getTransactionCount()))
-                .collect(Collectors.toList());
+    /**
+     * Fold (payment type, status) rows into per payment type aggregates, keeping the query order
+     */
+    private List<PaymentTypeTotals> groupByPaymentType(List<PaymentTypeStatusAggregateDTO> rows) {
+        Map<UUID, PaymentTypeTotals> byType = new LinkedHashMap<>();
+        for (PaymentTypeStatusAggregateDTO row : rows) {
+            PaymentTypeTotals totals = byType.computeIfAbsent(row.getPaymentTypeId(),
+                    id -> new PaymentTypeTotals(id, row.getPaymentTypeName(), TransactionAggregates.empty()));
+            if (row.getStatus() != null) {
+                totals.aggregates().add(row.toStatusAggregate());
+            }
+        }
+        return new ArrayList<>(byType.values());
     }
-}
 
+    private record PaymentTypeTotals(UUID paymentTypeId, String paymentTypeName, TransactionAggregates aggregates) {
+    }
+}
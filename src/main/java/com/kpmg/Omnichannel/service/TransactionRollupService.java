@@ -0,0 +1,275 @@
+package com.kpmg.omnichannel.service;
+
+import com.kpmg.omnichannel.model.Transaction;
+import com.kpmg.omnichannel.model.TransactionDailyRollup;
+import com.kpmg.omnichannel.model.TransactionStatus;
+import com.kpmg.omnichannel.repository.TransactionDailyRollupRepository;
+import com.kpmg.omnichannel.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the transaction_daily_rollup table, keyed by (date, status, payment type, currency).
+ *
+ * Deltas are collected per database transaction and written just before it commits, one upsert
+ * per key in key order, so the shared rollup rows are locked only for the commit itself and
+ * always in the same order. A periodic reconcile recomputes recent days from the transactions
+ * table to correct any drift; it locks the days' rows in that same order before it aggregates,
+ * so a writer committing meanwhile waits for the corrected row instead of being overwritten.
+ */
+@Service
+@Slf4j
+public class TransactionRollupService {
+
+    // The order of findByRollupDateBetweenForUpdate: statuses by name and payment type ids as unsigned
+    // bytes, which is how the database sorts its enum and uuid columns
+    private static final Comparator<RollupKey> KEY_ORDER = Comparator.comparing(RollupKey::date)
+            .thenComparing(key -> key.status().name())
+            .thenComparing(key -> key.paymentTypeId().toString())
+            .thenComparing(RollupKey::currency);
+
+    private final TransactionDailyRollupRepository rollupRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate requiresNewTemplate;
+    private final int reconcileDays;
+
+    public TransactionRollupService(TransactionDailyRollupRepository rollupRepository,
+                                    TransactionRepository transactionRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${omnichannel.rollup.reconcile-days:2}") int reconcileDays) {
+        this.rollupRepository = rollupRepository;
+        this.transactionRepository = transactionRepository;
+        this.requiresNewTemplate = new TransactionTemplate(transactionManager);
+        this.requiresNewTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.reconcileDays = reconcileDays;
+    }
+
+    /**
+     * Count a newly created transaction in its rollup bucket
+     */
+    @Transactional
+    public void recordCreated(Transaction transaction) {
+        applyDelta(keyOf(transaction, transaction.getStatus()), 1L, transaction.getAmount());
+    }
+
+    /**
+     * Count a batch of newly created transactions; deltas for the same bucket are summed before they are written
+     */
+    @Transactional
+    public void recordCreated(Collection<Transaction> transactions) {
+        for (Transaction transaction : transactions) {
+            applyDelta(keyOf(transaction, transaction.getStatus()), 1L, transaction.getAmount());
+        }
+    }
+
+    /**
+     * Move a transaction from its old status bucket to the new one
+     */
+    @Transactional
+    public void recordStatusChange(Transaction transaction, TransactionStatus oldStatus, TransactionStatus newStatus) {
+        if (oldStatus == newStatus) {
+            return;
+        }
+        applyDelta(keyOf(transaction, oldStatus), -1L, transaction.getAmount().negate());
+        applyDelta(keyOf(transaction, newStatus), 1L, transaction.getAmount());
+    }
+
+    /**
+     * Backfill rollups on startup when the table is empty but transactions already exist
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildIfEmpty() {
+        if (rollupRepository.count() == 0 && transactionRepository.count() > 0) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Recompute every rollup row from the transactions table
+     */
+    @Transactional
+    public void rebuild() {
+        rollupRepository.deleteAllInBatch();
+        List<TransactionDailyRollup> rollups = rollupRepository.aggregateTransactionsByRollupKey().stream()
+                .map(row -> toRollup(row, new TransactionDailyRollup()))
+                .toList();
+        rollupRepository.saveAll(rollups);
+        log.info("Rebuilt {} transaction daily rollup rows", rollups.size());
+    }
+
+    /**
+     * Recompute the rollup rows of the given days from the transactions table. Existing rows
+     * are overwritten with the recomputed figures and rows no transaction maps to are zeroed.
+     *
+     * The rows are locked before the transactions are aggregated: a writer that has not
+     * committed yet blocks on its rollup upsert until the correction commits and then adds its
+     * delta on top, and one that has committed is already in the aggregate. Missing rows are
+     * created empty beforehand in their own transaction so that they are locked the same way.
+     */
+    @Transactional
+    public int rebuild(LocalDate startDate, LocalDate endDate) {
+        LocalDateTime start = startDate.atStartOfDay();
+        LocalDateTime end = endDate.plusDays(1).atStartOfDay();
+        createMissingRows(startDate, endDate, start, end);
+
+        Map<RollupKey, TransactionDailyRollup> existing = rollupRepository
+                .findByRollupDateBetweenForUpdate(startDate, endDate)
+                .stream()
+                .collect(Collectors.toMap(TransactionRollupService::keyOf, Function.identity()));
+
+        int corrected = 0;
+        for (Object[] row : rollupRepository.aggregateTransactionsByRollupKey(start, end)) {
+            TransactionDailyRollup rollup = existing.remove(keyOf(row));
+            if (rollup == null) {
+                // The key's first transaction committed after the lock, together with the row it created
+                continue;
+            }
+            if (!rollup.getTransactionCount().equals(row[4])
+                    || rollup.getTotalAmount().compareTo((BigDecimal) row[5]) != 0) {
+                toRollup(row, rollup);
+                corrected++;
+            }
+        }
+        for (TransactionDailyRollup stale : existing.values()) {
+            if (stale.getTransactionCount() != 0 || stale.getTotalAmount().signum() != 0) {
+                stale.setTransactionCount(0L);
+                stale.setTotalAmount(BigDecimal.ZERO);
+                corrected++;
+            }
+        }
+        log.info("Reconciled transaction daily rollups from {} to {}: {} rows corrected", startDate, endDate, corrected);
+        return corrected;
+    }
+
+    /**
+     * Insert empty rows for the keys the range's transactions map to but no rollup row exists for
+     */
+    private void createMissingRows(LocalDate startDate, LocalDate endDate, LocalDateTime start, LocalDateTime end) {
+        requiresNewTemplate.executeWithoutResult(status -> {
+            Set<RollupKey> present = rollupRepository.findByRollupDateBetween(startDate, endDate).stream()
+                    .map(TransactionRollupService::keyOf)
+                    .collect(Collectors.toSet());
+            rollupRepository.aggregateTransactionsByRollupKey(start, end).stream()
+                    .map(TransactionRollupService::keyOf)
+                    .filter(key -> !present.contains(key))
+                    .sorted(KEY_ORDER)
+                    .forEach(key -> upsert(key, new Delta(0L, BigDecimal.ZERO)));
+        });
+    }
+
+    /**
+     * Periodically reconcile the most recent days, where in-flight writes land
+     */
+    @Scheduled(fixedDelayString = "${omnichannel.rollup.reconcile-interval-ms:3600000}",
+               initialDelayString = "${omnichannel.rollup.reconcile-interval-ms:3600000}")
+    @Transactional
+    public void reconcileRecent() {
+        LocalDate today = LocalDate.now();
+        rebuild(today.minusDays(reconcileDays - 1L), today);
+    }
+
+    /**
+     * Add a delta to the key's pending change in the current transaction, or write it right
+     * away when there is no transaction to defer it to
+     */
+    private void applyDelta(RollupKey key, long countDelta, BigDecimal amountDelta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            upsert(key, new Delta(countDelta, amountDelta));
+            return;
+        }
+        pendingDeltas().merge(key, new Delta(countDelta, amountDelta), Delta::plus);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<RollupKey, Delta> pendingDeltas() {
+        Map<RollupKey, Delta> pending = (Map<RollupKey, Delta>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending;
+        }
+        Map<RollupKey, Delta> created = new TreeMap<>(KEY_ORDER);
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                created.forEach((key, delta) -> {
+                    if (!delta.isZero()) {
+                        upsert(key, delta);
+                    }
+                });
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(TransactionRollupService.this);
+            }
+        });
+        return created;
+    }
+
+    private void upsert(RollupKey key, Delta delta) {
+        rollupRepository.upsertDelta(key.date(), key.status(), key.paymentTypeId(), key.currency(),
+                delta.count(), delta.amount());
+    }
+
+    private static TransactionDailyRollup toRollup(Object[] row, TransactionDailyRollup rollup) {
+        rollup.setRollupDate((LocalDate) row[0]);
+        rollup.setStatus((TransactionStatus) row[1]);
+        rollup.setPaymentTypeId((UUID) row[2]);
+        rollup.setCurrency((String) row[3]);
+        rollup.setTransactionCount((Long) row[4]);
+        rollup.setTotalAmount((BigDecimal) row[5]);
+        return rollup;
+    }
+
+    private static RollupKey keyOf(Object[] row) {
+        return new RollupKey((LocalDate) row[0], (TransactionStatus) row[1], (UUID) row[2], (String) row[3]);
+    }
+
+    private static RollupKey keyOf(TransactionDailyRollup rollup) {
+        return new RollupKey(rollup.getRollupDate(), rollup.getStatus(), rollup.getPaymentTypeId(), rollup.getCurrency());
+    }
+
+    private static RollupKey keyOf(Transaction transaction, TransactionStatus status) {
+        LocalDateTime createdAt = transaction.getCreatedAt() != null ? transaction.getCreatedAt() : LocalDateTime.now();
+        return new RollupKey(createdAt.toLocalDate(), status,
+                transaction.getPaymentType().getPaymentTypeId(), transaction.getCurrency());
+    }
+
+    private record RollupKey(LocalDate date, TransactionStatus status, UUID paymentTypeId, String currency) {
+    }
+
+    private record Delta(long count, BigDecimal amount) {
+
+        Delta plus(Delta other) {
+            return new Delta(count + other.count, amount.add(other.amount));
+        }
+
+        boolean isZero() {
+            return count == 0 && amount.signum() == 0;
+        }
+    }
+}
@@ -1,20 +1,42 @@
 package com.kpmg.omnichannel.service;
 
+import com.kpmg.omnichannel.dto.AccountSnapshot;
+import com.kpmg.omnichannel.dto.BatchTransactionResponse;
+import com.kpmg.omnichannel.dto.BatchTransactionResult;
+import com.kpmg.omnichannel.dto.PaymentTypeSnapshot;
 import com.kpmg.omnichannel.dto.TransactionRequest;
 import com.kpmg.omnichannel.dto.TransactionResponse;
 import com.kpmg.omnichannel.exception.AccountNotActiveException;
 import com.kpmg.omnichannel.exception.InsufficientBalanceException;
+import com.kpmg.omnichannel.exception.InvalidRequestException;
+import com.kpmg.omnichannel.exception.InvalidTransactionStateException;
 import com.kpmg.omnichannel.exception.KycNotVerifiedException;
+import com.kpmg.omnichannel.exception.ResourceAlreadyExistsException;
 import com.kpmg.omnichannel.exception.ResourceNotFoundException;
+import com.kpmg.omnichannel.exception.TransactionNotAllowedException;
 import com.kpmg.omnichannel.model.*;
 import com.kpmg.omnichannel.repository.PaymentTypeRepository;
 import com.kpmg.omnichannel.repository.TransactionRepository;
 import com.kpmg.omnichannel.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
@@ -25,84 +47,238 @@ public class TransactionService {
     private final TransactionRepository transactionRepository;
     private final UserRepository userRepository;
     private final PaymentTypeRepository paymentTypeRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final AccountSnapshotCache accountSnapshotCache;
     private final WalletService walletService;
+    private final TransactionRollupService rollupService;
+    private final TransactionLimitResolver limitResolver;
+    private final TransactionVelocityTracker velocityTracker;
+    private final TransactionIdempotencyCache idempotencyCache;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionSettlementService settlementService;
+    private final TransactionStateMachine stateMachine;
+
+    @Value("${omnichannel.transactions.batch.max-items:10000}")
+    private int maxBatchItems;
+
+    // Channel assumed for requests that do not name one, so every initiation is channel-gated
+    @Value("${omnichannel.transactions.default-channel:}")
+    private Channel defaultChannel;
 
     @Transactional
     public TransactionResponse initiateTransaction(TransactionRequest request) {
-        // Fetch user and merchant
-        User user = userRepository.findById(request.getUserId())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + request.getUserId()));
-
-        User merchant = userRepository.findById(request.getMerchantId())
-                .orElseThrow(() -> new ResourceNotFoundException("Merchant not found with id: " + request.getMerchantId()));
+        return createTransaction(request, null);
+    }
 
-        // Validate User Account Status
-        if (user.getStatus() != UserStatus.ACTIVE) {
-            throw new AccountNotActiveException(
-                    "Transaction not allowed: User account is " + user.getStatus() + 
-                    ". Only ACTIVE accounts can perform transactions."
-            );
+    /**
+     * Initiate a transaction under a client-supplied Idempotency-Key.
+     * A repeat of the key by the same user returns the original response: from the in-memory
+     * cache without touching the database, or from the stored transaction on a cache miss.
+     */
+    public TransactionResponse initiateTransaction(TransactionRequest request, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return transactionTemplate.execute(status -> createTransaction(request, null));
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > 100) {
+            throw new InvalidRequestException("Idempotency-Key must be between 1 and 100 characters");
         }
 
-        // Validate User KYC Status
-        if (user.getKycStatus() != KycStatus.VERIFIED) {
-            throw new KycNotVerifiedException(
-                    "Transaction not allowed: User KYC status is " + user.getKycStatus() + 
-                    ". KYC verification is required to perform transactions."
-            );
+        Optional<TransactionResponse> cached = idempotencyCache.get(request.getUserId(), idempotencyKey);
+        if (cached.isPresent()) {
+            return replay(cached.get(), request, idempotencyKey);
         }
 
-        // Validate Merchant Account Status
-        if (merchant.getStatus() != UserStatus.ACTIVE) {
-            throw new AccountNotActiveException(
-                    "Transaction not allowed: Merchant account is " + merchant.getStatus() + 
-                    ". Transactions can only be made to ACTIVE merchants."
-            );
+        try {
+            return transactionTemplate.execute(status -> createTransaction(request, idempotencyKey));
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request with the same key was committed first
+            return transactionTemplate.execute(status -> findByIdempotencyKey(request.getUserId(), idempotencyKey))
+                    .map(previous -> replay(previous, request, idempotencyKey))
+                    .orElseThrow(() -> new ResourceAlreadyExistsException(
+                            "A transaction with Idempotency-Key '" + idempotencyKey + "' is already being processed"));
         }
+    }
 
-        // Validate Merchant KYC Status
-        if (merchant.getKycStatus() != KycStatus.VERIFIED) {
-            throw new KycNotVerifiedException(
-                    "Transaction not allowed: Merchant KYC status is " + merchant.getKycStatus() + 
-                    ". Transactions can only be made to KYC verified merchants."
-            );
+    private TransactionResponse createTransaction(TransactionRequest request, String idempotencyKey) {
+        // Persistent fallback for keys no longer (or not yet) in the cache
+        if (idempotencyKey != null) {
+            Optional<TransactionResponse> previous = findByIdempotencyKey(request.getUserId(), idempotencyKey);
+            if (previous.isPresent()) {
+                return replay(previous.get(), request, idempotencyKey);
+            }
         }
 
+        // Account and payment type checks run on cached snapshots; the entities are only referenced by id
+        AccountSnapshot user = accountSnapshotCache.find(request.getUserId())
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + request.getUserId()));
+
+        AccountSnapshot merchant = accountSnapshotCache.find(request.getMerchantId())
+                .orElseThrow(() -> new ResourceNotFoundException("Merchant not found with id: " + request.getMerchantId()));
+
+        validateParticipants(user, merchant);
+
         // Fetch and validate payment type
-        PaymentType paymentType = paymentTypeRepository.findById(request.getPaymentTypeId())
+        PaymentTypeSnapshot paymentType = referenceDataCache.findPaymentType(request.getPaymentTypeId())
                 .orElseThrow(() -> new ResourceNotFoundException("Payment type not found with id: " + request.getPaymentTypeId()));
+        validatePaymentType(paymentType, request.getChannel());
 
-        // Validate payment type is active
-        if (!paymentType.getIsActive()) {
-            throw new AccountNotActiveException(
-                    "Transaction not allowed: Payment type '" + paymentType.getName() + 
-                    "' is currently inactive."
-            );
-        }
-
-        // TODO: Check Transaction Limits
+        // Check transaction limits
+        checkTransactionLimits(user, paymentType, request.getAmount());
 
         // Check if user has sufficient balance
-        if (!walletService.hasSufficientBalance(user.getUserId(), request.getAmount())) {
+        if (!walletService.hasSufficientBalance(user.userId(), request.getAmount())) {
             throw new InsufficientBalanceException(
                     String.format("Insufficient wallet balance. Available: %.2f, Required: %.2f",
-                            walletService.getBalance(user.getUserId()), request.getAmount())
+                            walletService.getBalance(user.userId()), request.getAmount())
             );
         }
 
         // Create and save transaction
         Transaction transaction = new Transaction();
-        transaction.setUser(user);
-        transaction.setMerchant(merchant);
-        transaction.setPaymentType(paymentType);
+        transaction.setUser(userRepository.getReferenceById(user.userId()));
+        transaction.setMerchant(userRepository.getReferenceById(merchant.userId()));
+        transaction.setPaymentType(paymentTypeRepository.getReferenceById(paymentType.paymentTypeId()));
         transaction.setAmount(request.getAmount());
         transaction.setCurrency(request.getCurrency());
         transaction.setStatus(TransactionStatus.INITIATED);
+        transaction.setIdempotencyKey(idempotencyKey);
 
-        Transaction savedTransaction = transactionRepository.save(transaction);
+        // Flush keyed inserts right away so a duplicate key fails here rather than at commit
+        Transaction savedTransaction = idempotencyKey != null
+                ? transactionRepository.saveAndFlush(transaction)
+                : transactionRepository.save(transaction);
+        rollupService.recordCreated(savedTransaction);
         log.info("Transaction initiated: {} for amount: {}", savedTransaction.getTransactionId(), request.getAmount());
-        
-        return mapToResponse(savedTransaction);
+
+        TransactionResponse response = mapToResponse(savedTransaction);
+        if (idempotencyKey != null) {
+            // Only cache once the transaction row is committed
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    idempotencyCache.put(user.userId(), idempotencyKey, response);
+                }
+            });
+        }
+        return response;
+    }
+
+    /**
+     * Reject a batch as soon as it holds more than omnichannel.transactions.batch.max-items items
+     */
+    public void checkBatchSize(int items) {
+        if (items > maxBatchItems) {
+            throw new InvalidRequestException("Batch exceeds the maximum of " + maxBatchItems + " transactions");
+        }
+    }
+
+    /**
+     * Initiate a batch of transactions in one database transaction.
+     * Users and payment types are prefetched in bulk and every item is validated in memory
+     * with the same rules as a single initiation. Invalid items are reported individually;
+     * the valid ones are inserted together using JDBC batching.
+     */
+    @Transactional
+    public BatchTransactionResponse initiateTransactions(List<TransactionRequest> requests) {
+        checkBatchSize(requests.size());
+
+        // Bulk prefetch of everything the batch references
+        Set<UUID> userIds = new HashSet<>();
+        Set<UUID> paymentTypeIds = new HashSet<>();
+        for (TransactionRequest request : requests) {
+            if (request.getUserId() != null) {
+                userIds.add(request.getUserId());
+            }
+            if (request.getMerchantId() != null) {
+                userIds.add(request.getMerchantId());
+            }
+            if (request.getPaymentTypeId() != null) {
+                paymentTypeIds.add(request.getPaymentTypeId());
+            }
+        }
+        Map<UUID, AccountSnapshot> users = accountSnapshotCache.findAll(userIds);
+        Map<UUID, PaymentTypeSnapshot> paymentTypes = referenceDataCache.findPaymentTypes(paymentTypeIds);
+        Map<UUID, BigDecimal> balances = new HashMap<>();
+
+        List<BatchTransactionResult> results = new ArrayList<>(requests.size());
+        List<Transaction> transactions = new ArrayList<>();
+        List<BatchTransactionResult> acceptedResults = new ArrayList<>();
+        for (int index = 0; index < requests.size(); index++) {
+            BatchTransactionResult result = BatchTransactionResult.builder().index(index).build();
+            results.add(result);
+            try {
+                transactions.add(buildBatchTransaction(requests.get(index), users, paymentTypes, balances));
+                acceptedResults.add(result);
+            } catch (RuntimeException e) {
+                result.setError(e.getMessage());
+            }
+        }
+
+        List<Transaction> savedTransactions = transactionRepository.saveAll(transactions);
+        rollupService.recordCreated(savedTransactions);
+        for (int i = 0; i < savedTransactions.size(); i++) {
+            BatchTransactionResult result = acceptedResults.get(i);
+            result.setSuccess(true);
+            result.setTransactionId(savedTransactions.get(i).getTransactionId());
+            result.setStatus(savedTransactions.get(i).getStatus());
+        }
+        log.info("Batch initiated {} of {} transactions", savedTransactions.size(), requests.size());
+
+        return BatchTransactionResponse.builder()
+                .total(requests.size())
+                .succeeded(savedTransactions.size())
+                .failed(requests.size() - savedTransactions.size())
+                .results(results)
+                .build();
+    }
+
+    private Transaction buildBatchTransaction(TransactionRequest request, Map<UUID, AccountSnapshot> users,
+                                              Map<UUID, PaymentTypeSnapshot> paymentTypes,
+                                              Map<UUID, BigDecimal> balances) {
+        if (request.getUserId() == null || request.getMerchantId() == null || request.getPaymentTypeId() == null
+                || request.getAmount() == null || request.getCurrency() == null) {
+            throw new InvalidRequestException("userId, merchantId, paymentTypeId, amount and currency are required");
+        }
+        if (request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new InvalidRequestException("Amount must be greater than zero");
+        }
+
+        AccountSnapshot user = users.get(request.getUserId());
+        if (user == null) {
+            throw new ResourceNotFoundException("User not found with id: " + request.getUserId());
+        }
+        AccountSnapshot merchant = users.get(request.getMerchantId());
+        if (merchant == null) {
+            throw new ResourceNotFoundException("Merchant not found with id: " + request.getMerchantId());
+        }
+        validateParticipants(user, merchant);
+
+        PaymentTypeSnapshot paymentType = paymentTypes.get(request.getPaymentTypeId());
+        if (paymentType == null) {
+            throw new ResourceNotFoundException("Payment type not found with id: " + request.getPaymentTypeId());
+        }
+        validatePaymentType(paymentType, request.getChannel());
+
+        // Balance is read once per payer and checked per item, as a single initiation would
+        BigDecimal available = balances.computeIfAbsent(user.userId(), walletService::getBalance);
+        if (available.compareTo(request.getAmount()) < 0) {
+            throw new InsufficientBalanceException(
+                    String.format("Insufficient wallet balance. Available: %.2f, Required: %.2f",
+                            available, request.getAmount())
+            );
+        }
+
+        // Limits last, so that only items that will be inserted reserve rolling spend
+        checkTransactionLimits(user, paymentType, request.getAmount());
+
+        Transaction transaction = new Transaction();
+        transaction.setUser(userRepository.getReferenceById(user.userId()));
+        transaction.setMerchant(userRepository.getReferenceById(merchant.userId()));
+        transaction.setPaymentType(paymentTypeRepository.getReferenceById(paymentType.paymentTypeId()));
+        transaction.setAmount(request.getAmount());
+        transaction.setCurrency(request.getCurrency());
+        transaction.setStatus(TransactionStatus.INITIATED);
+        return transaction;
     }
 
     public TransactionResponse getTransactionById(UUID id) {
@@ -117,28 +293,145 @@ public class TransactionService {
                 .orElseThrow(() -> new ResourceNotFoundException("Transaction not found with id: " + id));
 
         TransactionStatus oldStatus = transaction.getStatus();
-        transaction.setStatus(status);
-        Transaction updatedTransaction = transactionRepository.save(transaction);
+        TransactionStatus newStatus;
 
-        // Update wallet balances when transaction is approved (SUCCESS status)
-        if (status == TransactionStatus.SUCCESS && oldStatus != TransactionStatus.SUCCESS) {
-            try {
-                walletService.transfer(
-                        transaction.getUser().getUserId(),
-                        transaction.getMerchant().getUserId(),
-                        transaction.getAmount()
-                );
-                log.info("Wallet balances updated for transaction: {}", id);
-            } catch (Exception e) {
-                // Rollback transaction status if wallet update fails
-                transaction.setStatus(TransactionStatus.FAILED);
-                transactionRepository.save(transaction);
-                log.error("Failed to update wallet balances for transaction: {}", id, e);
-                throw new RuntimeException("Transaction failed: Unable to update wallet balances - " + e.getMessage());
+        if (status == TransactionStatus.SUCCESS) {
+            // Approval hands the money movement to the settlement workers: the transaction stays
+            // PROCESSING until they write SUCCESS, or FAILED if the payer cannot cover it
+            if (oldStatus == TransactionStatus.SUCCESS
+                    || (oldStatus == TransactionStatus.PROCESSING && transaction.getSettlementRequestedAt() != null)) {
+                return mapToResponse(transaction);
+            }
+            if (!stateMachine.requestSettlement(id, oldStatus)) {
+                throw concurrentModification(id);
             }
+            newStatus = TransactionStatus.PROCESSING;
+            settlementService.submitAfterCommit(id);
+            log.info("Transaction {} queued for settlement", id);
+        } else {
+            if (status == oldStatus) {
+                return mapToResponse(transaction);
+            }
+            if (!stateMachine.transition(id, oldStatus, status)) {
+                throw concurrentModification(id);
+            }
+            newStatus = status;
+        }
+
+        rollupService.recordStatusChange(transaction, oldStatus, newStatus);
+        velocityTracker.recordStatusChange(transaction, oldStatus, newStatus);
+
+        // The status was written by a conditional update, so the loaded entity is left untouched
+        TransactionResponse response = mapToResponse(transaction);
+        response.setStatus(newStatus);
+        return response;
+    }
+
+    private InvalidTransactionStateException concurrentModification(UUID id) {
+        return new InvalidTransactionStateException(
+                "Transaction " + id + " was modified concurrently, reload it and retry");
+    }
+
+    /**
+     * Payer and merchant must both be ACTIVE and KYC verified
+     */
+    private void validateParticipants(AccountSnapshot user, AccountSnapshot merchant) {
+        // Validate User Account Status
+        if (user.status() != UserStatus.ACTIVE) {
+            throw new AccountNotActiveException(
+                    "Transaction not allowed: User account is " + user.status() + 
+                    ". Only ACTIVE accounts can perform transactions."
+            );
+        }
+
+        // Validate User KYC Status
+        if (user.kycStatus() != KycStatus.VERIFIED) {
+            throw new KycNotVerifiedException(
+                    "Transaction not allowed: User KYC status is " + user.kycStatus() + 
+                    ". KYC verification is required to perform transactions."
+            );
+        }
+
+        // Validate Merchant Account Status
+        if (merchant.status() != UserStatus.ACTIVE) {
+            throw new AccountNotActiveException(
+                    "Transaction not allowed: Merchant account is " + merchant.status() + 
+                    ". Transactions can only be made to ACTIVE merchants."
+            );
+        }
+
+        // Validate Merchant KYC Status
+        if (merchant.kycStatus() != KycStatus.VERIFIED) {
+            throw new KycNotVerifiedException(
+                    "Transaction not allowed: Merchant KYC status is " + merchant.kycStatus() + 
+                    ". Transactions can only be made to KYC verified merchants."
+            );
+        }
+    }
+
+    private void validatePaymentType(PaymentTypeSnapshot paymentType, Channel channel) {
+        // Validate payment type is active
+        if (!paymentType.isActive()) {
+            throw new AccountNotActiveException(
+                    "Transaction not allowed: Payment type '" + paymentType.name() + 
+                    "' is currently inactive."
+            );
+        }
+
+        if (channel == null) {
+            channel = defaultChannel;
+        }
+        // Requests without a channel are not gated unless a default channel is configured
+        if (channel != null && !paymentType.isEnabledFor(channel)) {
+            throw new TransactionNotAllowedException(
+                    "Transaction not allowed: Payment type '" + paymentType.name() +
+                    "' is not enabled for channel '" + channel.toValue() + "'."
+            );
+        }
+    }
+
+    private Optional<TransactionResponse> findByIdempotencyKey(UUID userId, String idempotencyKey) {
+        Optional<TransactionResponse> previous = transactionRepository
+                .findByUserUserIdAndIdempotencyKey(userId, idempotencyKey)
+                .map(this::mapToResponse);
+        previous.ifPresent(response -> idempotencyCache.put(userId, idempotencyKey, response));
+        return previous;
+    }
+
+    /**
+     * Return the original response for a repeated key, refusing reuse of a key for a different payment
+     */
+    private TransactionResponse replay(TransactionResponse previous, TransactionRequest request, String idempotencyKey) {
+        boolean sameRequest = Objects.equals(previous.getMerchantId(), request.getMerchantId())
+                && Objects.equals(previous.getPaymentTypeId(), request.getPaymentTypeId())
+                && Objects.equals(previous.getCurrency(), request.getCurrency())
+                && request.getAmount() != null && previous.getAmount().compareTo(request.getAmount()) == 0;
+        if (!sameRequest) {
+            throw new TransactionNotAllowedException(
+                    "Idempotency-Key '" + idempotencyKey + "' was already used for a different transaction request");
+        }
+        log.info("Replayed transaction {} for Idempotency-Key {}", previous.getTransactionId(), idempotencyKey);
+        return previous;
+    }
+
+    /**
+     * Enforce the user's effective limits for the payment type, resolved from memory.
+     * Daily and monthly limits are checked against the rolling spend windows.
+     */
+    private void checkTransactionLimits(AccountSnapshot user, PaymentTypeSnapshot paymentType, BigDecimal amount) {
+        TransactionLimitResolver.EffectiveLimit limit =
+                limitResolver.resolve(user.userId(), paymentType.paymentTypeId());
+
+        if (limit.perTxnLimit() != null && amount.compareTo(limit.perTxnLimit()) > 0) {
+            throw new TransactionNotAllowedException(
+                    String.format("Transaction not allowed: Amount %.2f exceeds the per-transaction limit of %.2f for payment type '%s'.",
+                            amount, limit.perTxnLimit(), paymentType.name())
+            );
         }
 
-        return mapToResponse(updatedTransaction);
+        // Every transaction counts towards rolling spend, even when no daily or monthly limit applies yet
+        velocityTracker.reserve(user.userId(), paymentType.paymentTypeId(), amount,
+                limit.dailyLimit(), limit.monthlyLimit());
     }
 
     private TransactionResponse mapToResponse(Transaction transaction) {
@@ -0,0 +1,286 @@
+package com.kpmg.omnichannel.service;
+
+import com.kpmg.omnichannel.dto.SettlementMetricsResponse;
+import com.kpmg.omnichannel.model.Transaction;
+import com.kpmg.omnichannel.model.TransactionStatus;
+import com.kpmg.omnichannel.repository.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous settlement of approved transactions.
+ *
+ * Approving a transaction only marks it PROCESSING and queues its id once the status change
+ * commits. A pool of workers drains the bounded queue in micro-batches and settles each batch
+ * in one database transaction: claim each transaction via {@link TransactionStateMachine},
+ * move the money through {@link WalletService#transferAll}, which coalesces credits to the
+ * same account, then write SUCCESS or FAILED back.
+ *
+ * Transactions that miss the queue (queue full, crash, restart) stay PROCESSING with
+ * settlement_requested_at set and are re-queued by the recovery sweep.
+ */
+@Service
+@Slf4j
+public class TransactionSettlementService {
+
+    private final TransactionRepository transactionRepository;
+    private final WalletService walletService;
+    private final TransactionRollupService rollupService;
+    private final TransactionVelocityTracker velocityTracker;
+    private final TransactionStateMachine stateMachine;
+    private final TransactionTemplate settlementTemplate;
+
+    private final int workerCount;
+    private final int batchSize;
+    private final int queueCapacity;
+    private final long recoverAfterSeconds;
+
+    private final BlockingQueue<QueuedSettlement> queue;
+    private final Set<UUID> queuedIds = ConcurrentHashMap.newKeySet();
+    private ExecutorService workers;
+    private volatile boolean running;
+
+    private final AtomicLong settled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong lastBatchSize = new AtomicLong();
+    private final AtomicLong lastLagMillis = new AtomicLong();
+    private final AtomicLong maxLagMillis = new AtomicLong();
+
+    public TransactionSettlementService(TransactionRepository transactionRepository,
+                                        WalletService walletService,
+                                        TransactionRollupService rollupService,
+                                        TransactionVelocityTracker velocityTracker,
+                                        TransactionStateMachine stateMachine,
+                                        PlatformTransactionManager transactionManager,
+                                        @Value("${omnichannel.settlement.workers:4}") int workerCount,
+                                        @Value("${omnichannel.settlement.batch-size:100}") int batchSize,
+                                        @Value("${omnichannel.settlement.queue-capacity:10000}") int queueCapacity,
+                                        @Value("${omnichannel.settlement.recover-after-seconds:60}") long recoverAfterSeconds) {
+        this.transactionRepository = transactionRepository;
+        this.walletService = walletService;
+        this.rollupService = rollupService;
+        this.velocityTracker = velocityTracker;
+        this.stateMachine = stateMachine;
+        this.settlementTemplate = new TransactionTemplate(transactionManager);
+        this.settlementTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.workerCount = workerCount;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+        this.recoverAfterSeconds = recoverAfterSeconds;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        AtomicInteger threadNo = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "settlement-" + threadNo.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workerCount; i++) {
+            workers.submit(this::drainLoop);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Queue a transaction for settlement once the caller's database transaction commits
+     */
+    public void submitAfterCommit(UUID transactionId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(transactionId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueue(transactionId);
+            }
+        });
+    }
+
+    /**
+     * Re-queue transactions whose settlement was requested but never completed
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverOnStartup() {
+        recover(LocalDateTime.now());
+    }
+
+    @Scheduled(fixedDelayString = "${omnichannel.settlement.recover-interval-ms:30000}")
+    public void recoverStuck() {
+        recover(LocalDateTime.now().minusSeconds(recoverAfterSeconds));
+    }
+
+    public SettlementMetricsResponse getMetrics() {
+        QueuedSettlement oldest = queue.peek();
+        return SettlementMetricsResponse.builder()
+                .queueDepth(queue.size())
+                .queueCapacity(queueCapacity)
+                .workers(workerCount)
+                .settledTransactions(settled.get())
+                .failedTransactions(failed.get())
+                .batches(batches.get())
+                .lastBatchSize(lastBatchSize.get())
+                .lastLagMillis(lastLagMillis.get())
+                .maxLagMillis(maxLagMillis.get())
+                .oldestQueuedMillis(oldest != null ? millisSince(oldest.enqueuedAt()) : 0)
+                .build();
+    }
+
+    private void recover(LocalDateTime cutoff) {
+        List<UUID> backlog = transactionRepository.findSettlementBacklog(cutoff);
+        int queued = 0;
+        for (UUID transactionId : backlog) {
+            if (enqueue(transactionId)) {
+                queued++;
+            }
+        }
+        if (queued > 0) {
+            log.info("Re-queued {} transactions awaiting settlement", queued);
+        }
+    }
+
+    private boolean enqueue(UUID transactionId) {
+        if (!queuedIds.add(transactionId)) {
+            return false;
+        }
+        if (!queue.offer(new QueuedSettlement(transactionId, System.nanoTime()))) {
+            queuedIds.remove(transactionId);
+            log.warn("Settlement queue full, transaction {} will be picked up by recovery", transactionId);
+            return false;
+        }
+        return true;
+    }
+
+    private void drainLoop() {
+        List<QueuedSettlement> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                QueuedSettlement first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Settlement worker failed", e);
+            } finally {
+                batch.forEach(queued -> queuedIds.remove(queued.transactionId()));
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(List<QueuedSettlement> batch) {
+        long lag = millisSince(batch.get(0).enqueuedAt());
+        lastLagMillis.set(lag);
+        maxLagMillis.accumulateAndGet(lag, Math::max);
+        lastBatchSize.set(batch.size());
+        batches.incrementAndGet();
+
+        List<UUID> ids = batch.stream().map(QueuedSettlement::transactionId).toList();
+        try {
+            record(settlementTemplate.execute(status -> settle(ids)));
+        } catch (Exception e) {
+            // One bad item (or a lock conflict) must not block the rest: retry the items one by one
+            log.warn("Settlement batch of {} failed, retrying individually", ids.size(), e);
+            for (UUID id : ids) {
+                try {
+                    record(settlementTemplate.execute(status -> settle(List.of(id))));
+                } catch (Exception itemFailure) {
+                    log.error("Failed to settle transaction {}", id, itemFailure);
+                }
+            }
+        }
+    }
+
+    private Outcome settle(List<UUID> ids) {
+        // Claim in id order so concurrent workers always take row locks in the same order
+        List<Transaction> transactions = transactionRepository.findAllById(ids).stream()
+                .sorted(Comparator.comparing(Transaction::getTransactionId))
+                .filter(transaction -> stateMachine.claimSettlement(transaction.getTransactionId()))
+                .toList();
+        if (transactions.isEmpty()) {
+            return new Outcome(0, 0);
+        }
+
+        List<WalletService.Transfer> transfers = transactions.stream()
+                .map(transaction -> new WalletService.Transfer(
+                        transaction.getTransactionId(),
+                        transaction.getUser().getUserId(),
+                        transaction.getMerchant().getUserId(),
+                        transaction.getAmount()))
+                .toList();
+        Set<UUID> rejected = walletService.transferAll(transfers);
+
+        for (Transaction transaction : transactions) {
+            TransactionStatus finalStatus = rejected.contains(transaction.getTransactionId())
+                    ? TransactionStatus.FAILED
+                    : TransactionStatus.SUCCESS;
+            // Cannot lose: the claim above still holds the row lock
+            if (!stateMachine.transition(transaction.getTransactionId(), TransactionStatus.PROCESSING, finalStatus)) {
+                throw new IllegalStateException("Lost claimed transaction " + transaction.getTransactionId());
+            }
+            rollupService.recordStatusChange(transaction, TransactionStatus.PROCESSING, finalStatus);
+            velocityTracker.recordStatusChange(transaction, TransactionStatus.PROCESSING, finalStatus);
+        }
+        return new Outcome(transactions.size() - rejected.size(), rejected.size());
+    }
+
+    private void record(Outcome outcome) {
+        settled.addAndGet(outcome.settled());
+        failed.addAndGet(outcome.failed());
+    }
+
+    private static long millisSince(long nanoTime) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - nanoTime);
+    }
+
+    private record QueuedSettlement(UUID transactionId, long enqueuedAt) {
+    }
+
+    private record Outcome(int settled, int failed) {
+    }
+}
@@ -0,0 +1,88 @@
+package com.kpmg.omnichannel.service;
+
+import com.kpmg.omnichannel.exception.InvalidTransactionStateException;
+import com.kpmg.omnichannel.model.TransactionStatus;
+import com.kpmg.omnichannel.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Legal transaction status transitions: INITIATED -> PROCESSING -> SUCCESS | FAILED, and
+ * INITIATED -> FAILED for a transaction declined before it was processed.
+ *
+ * Every transition is written as a conditional UPDATE ... WHERE status = :expected that also
+ * bumps the @Version column. Of two concurrent writers only one can match the expected status,
+ * so the loser sees zero updated rows instead of silently overwriting the winner.
+ */
+@Component
+@RequiredArgsConstructor
+public class TransactionStateMachine {
+
+    private static final Map<TransactionStatus, Set<TransactionStatus>> TRANSITIONS =
+            new EnumMap<>(TransactionStatus.class);
+
+    static {
+        TRANSITIONS.put(TransactionStatus.INITIATED, EnumSet.of(TransactionStatus.PROCESSING, TransactionStatus.FAILED));
+        TRANSITIONS.put(TransactionStatus.PROCESSING, EnumSet.of(TransactionStatus.SUCCESS, TransactionStatus.FAILED));
+        TRANSITIONS.put(TransactionStatus.SUCCESS, EnumSet.noneOf(TransactionStatus.class));
+        TRANSITIONS.put(TransactionStatus.FAILED, EnumSet.noneOf(TransactionStatus.class));
+    }
+
+    private final TransactionRepository transactionRepository;
+
+    public boolean canTransition(TransactionStatus from, TransactionStatus to) {
+        return TRANSITIONS.get(from).contains(to);
+    }
+
+    public void validate(TransactionStatus from, TransactionStatus to) {
+        if (!canTransition(from, to)) {
+            throw new InvalidTransactionStateException(
+                    "Invalid status transition from " + from + " to " + to +
+                    ". Allowed from " + from + ": " + TRANSITIONS.get(from));
+        }
+    }
+
+    /**
+     * Move a transaction from the expected status to the next one
+     *
+     * @return false if the transaction was no longer in the expected status
+     */
+    @Transactional
+    public boolean transition(UUID transactionId, TransactionStatus expected, TransactionStatus next) {
+        validate(expected, next);
+        return transactionRepository.compareAndSetStatus(transactionId, expected, next, LocalDateTime.now()) == 1;
+    }
+
+    /**
+     * Move a transaction into PROCESSING with settlement requested. Valid from INITIATED,
+     * or from PROCESSING when settlement has not been requested yet.
+     *
+     * @return false if the transaction was modified concurrently
+     */
+    @Transactional
+    public boolean requestSettlement(UUID transactionId, TransactionStatus expected) {
+        if (expected != TransactionStatus.PROCESSING) {
+            validate(expected, TransactionStatus.PROCESSING);
+        }
+        return transactionRepository.requestSettlement(transactionId, expected, LocalDateTime.now()) == 1;
+    }
+
+    /**
+     * Claim a transaction awaiting settlement for the calling worker. The claim holds the
+     * row lock taken by the update until the caller's database transaction ends.
+     *
+     * @return false if another worker claimed it or its status changed
+     */
+    @Transactional
+    public boolean claimSettlement(UUID transactionId) {
+        return transactionRepository.claimSettlement(transactionId, LocalDateTime.now()) == 1;
+    }
+}
@@ -0,0 +1,254 @@
+package com.kpmg.omnichannel.service;
+
+import com.kpmg.omnichannel.exception.TransactionNotAllowedException;
+import com.kpmg.omnichannel.model.Transaction;
+import com.kpmg.omnichannel.model.TransactionStatus;
+import com.kpmg.omnichannel.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Rolling-window spend per (user, payment type), used to enforce daily and monthly limits.
+ *
+ * Each window keeps minute buckets for the last 24 hours and hour buckets for the rest of the
+ * last 30 days, plus running daily and monthly totals, so a limit check is a constant-time
+ * comparison and memory per active pair is bounded by 1440 + 720 buckets.
+ * Every transaction that has not FAILED counts towards spend. Windows are rebuilt from the
+ * transactions table at startup; idle windows are dropped on a schedule.
+ */
+@Component
+@Slf4j
+public class TransactionVelocityTracker {
+
+    private static final int SCALE = 2;
+    private static final long MINUTES_PER_HOUR = 60;
+    private static final long DAY_MINUTES = 24 * MINUTES_PER_HOUR;
+    private static final long MONTH_MINUTES = 30 * DAY_MINUTES;
+
+    private final TransactionRepository transactionRepository;
+    private final Map<SpendKey, SpendWindow> windows = new ConcurrentHashMap<>();
+
+    public TransactionVelocityTracker(TransactionRepository transactionRepository) {
+        this.transactionRepository = transactionRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        windows.clear();
+        long transactions = 0;
+        // Scalar rows read through a cursor, so 30 days of transactions are never held in memory at once
+        try (Stream<Object[]> rows = transactionRepository.streamSpendSince(
+                LocalDateTime.now().minusDays(30), TransactionStatus.FAILED)) {
+            for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+                SpendKey key = new SpendKey((UUID) row[0], (UUID) row[1]);
+                long minute = minuteOf((LocalDateTime) row[2]);
+                long amount = toMinorUnits((BigDecimal) row[3]);
+                apply(key, minute, amount);
+                transactions++;
+            }
+        }
+        log.info("Rebuilt {} spend windows from {} transactions", windows.size(), transactions);
+    }
+
+    /**
+     * Record the spend of a new transaction, rejecting it if it would exceed the daily or
+     * monthly limit. Check and record happen atomically per (user, payment type), and the
+     * spend is released again if the surrounding database transaction rolls back.
+     */
+    public void reserve(UUID userId, UUID paymentTypeId, BigDecimal amount,
+                        BigDecimal dailyLimit, BigDecimal monthlyLimit) {
+        SpendKey key = new SpendKey(userId, paymentTypeId);
+        long minute = currentMinute();
+        long delta = toMinorUnits(amount);
+
+        update(key, window -> {
+            window.advance(minute);
+            if (dailyLimit != null && window.daily + delta > toMinorUnits(dailyLimit)) {
+                throw new TransactionNotAllowedException(
+                        String.format("Transaction not allowed: Amount %.2f exceeds the remaining daily limit. Limit: %.2f, Spent in last 24 hours: %.2f",
+                                amount, dailyLimit, toAmount(window.daily))
+                );
+            }
+            if (monthlyLimit != null && window.monthly + delta > toMinorUnits(monthlyLimit)) {
+                throw new TransactionNotAllowedException(
+                        String.format("Transaction not allowed: Amount %.2f exceeds the remaining monthly limit. Limit: %.2f, Spent in last 30 days: %.2f",
+                                amount, monthlyLimit, toAmount(window.monthly))
+                );
+            }
+            window.add(minute, delta, minute);
+            return null;
+        });
+        compensateOnRollback(() -> apply(key, minute, -delta));
+    }
+
+    /**
+     * Release or re-count a transaction's spend when it moves into or out of FAILED
+     */
+    public void recordStatusChange(Transaction transaction, TransactionStatus oldStatus, TransactionStatus newStatus) {
+        boolean wasCounted = oldStatus != TransactionStatus.FAILED;
+        boolean isCounted = newStatus != TransactionStatus.FAILED;
+        if (wasCounted == isCounted) {
+            return;
+        }
+
+        SpendKey key = new SpendKey(transaction.getUser().getUserId(), transaction.getPaymentType().getPaymentTypeId());
+        LocalDateTime createdAt = transaction.getCreatedAt() != null ? transaction.getCreatedAt() : LocalDateTime.now();
+        long minute = minuteOf(createdAt);
+        long amount = toMinorUnits(transaction.getAmount());
+        long delta = isCounted ? amount : -amount;
+
+        apply(key, minute, delta);
+        compensateOnRollback(() -> apply(key, minute, -delta));
+    }
+
+    public BigDecimal getDailySpend(UUID userId, UUID paymentTypeId) {
+        long now = currentMinute();
+        return toAmount(update(new SpendKey(userId, paymentTypeId), window -> {
+            window.advance(now);
+            return window.daily;
+        }));
+    }
+
+    public BigDecimal getMonthlySpend(UUID userId, UUID paymentTypeId) {
+        long now = currentMinute();
+        return toAmount(update(new SpendKey(userId, paymentTypeId), window -> {
+            window.advance(now);
+            return window.monthly;
+        }));
+    }
+
+    /**
+     * Drop windows whose buckets have all expired
+     */
+    @Scheduled(fixedDelayString = "${omnichannel.velocity.evict-interval-ms:300000}")
+    public void evictIdle() {
+        long now = currentMinute();
+        windows.forEach((key, window) -> {
+            synchronized (window) {
+                window.advance(now);
+                if (window.isEmpty()) {
+                    window.retired = true;
+                    windows.remove(key, window);
+                }
+            }
+        });
+    }
+
+    private void apply(SpendKey key, long minute, long delta) {
+        long now = currentMinute();
+        update(key, window -> {
+            window.add(minute, delta, now);
+            return null;
+        });
+    }
+
+    /**
+     * Run an action on a window under its lock, retrying if the window was evicted meanwhile
+     */
+    private <T> T update(SpendKey key, Function<SpendWindow, T> action) {
+        while (true) {
+            SpendWindow window = windows.computeIfAbsent(key, k -> new SpendWindow());
+            synchronized (window) {
+                if (!window.retired) {
+                    return action.apply(window);
+                }
+            }
+        }
+    }
+
+    private void compensateOnRollback(Runnable compensation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    compensation.run();
+                }
+            }
+        });
+    }
+
+    private static long currentMinute() {
+        return minuteOf(LocalDateTime.now());
+    }
+
+    private static long minuteOf(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    private static long toMinorUnits(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal toAmount(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    private record SpendKey(UUID userId, UUID paymentTypeId) {
+    }
+
+    /**
+     * Minute buckets for the last 24 hours, hour buckets beyond that. Guarded by its own monitor.
+     */
+    private static final class SpendWindow {
+        private final TreeMap<Long, Long> minuteBuckets = new TreeMap<>();
+        private final TreeMap<Long, Long> hourBuckets = new TreeMap<>();
+        private long daily;
+        private long monthly;
+        private boolean retired;
+
+        void advance(long now) {
+            while (!minuteBuckets.isEmpty() && minuteBuckets.firstKey() <= now - DAY_MINUTES) {
+                Map.Entry<Long, Long> bucket = minuteBuckets.pollFirstEntry();
+                daily -= bucket.getValue();
+                hourBuckets.merge(hourOf(bucket.getKey()), bucket.getValue(), Long::sum);
+            }
+            // An hour bucket expires once its whole hour has left the window
+            while (!hourBuckets.isEmpty() && hourBuckets.firstKey() + MINUTES_PER_HOUR <= now - MONTH_MINUTES) {
+                monthly -= hourBuckets.pollFirstEntry().getValue();
+            }
+        }
+
+        void add(long minute, long delta, long now) {
+            advance(now);
+            if (hourOf(minute) + MINUTES_PER_HOUR <= now - MONTH_MINUTES) {
+                return;
+            }
+            monthly += delta;
+            if (minute > now - DAY_MINUTES) {
+                daily += delta;
+                minuteBuckets.merge(minute, delta, Long::sum);
+            } else {
+                hourBuckets.merge(hourOf(minute), delta, Long::sum);
+            }
+        }
+
+        boolean isEmpty() {
+            return minuteBuckets.isEmpty() && hourBuckets.isEmpty();
+        }
+
+        private static long hourOf(long minute) {
+            return minute - Math.floorMod(minute, MINUTES_PER_HOUR);
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.kpmg.omnichannel.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kpmg.omnichannel.dto.PaginatedUserResponse;
 import com.kpmg.omnichannel.dto.UserRequest;
 import com.kpmg.omnichannel.dto.UserResponse;
+import com.kpmg.omnichannel.dto.UserSearchRequest;
+import com.kpmg.omnichannel.exception.InvalidCursorException;
 import com.kpmg.omnichannel.exception.ResourceAlreadyExistsException;
 import com.kpmg.omnichannel.exception.ResourceNotFoundException;
 import com.kpmg.omnichannel.model.KycStatus;
@@ -10,11 +14,34 @@ import com.kpmg.omnichannel.model.UserRole;
 import com.kpmg.omnichannel.model.UserStatus;
 import com.kpmg.omnichannel.model.UserType;
 import com.kpmg.omnichannel.repository.UserRepository;
+import com.kpmg.omnichannel.repository.UserRoleRepository;
+import com.kpmg.omnichannel.repository.UserSpecifications;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -22,9 +49,26 @@ import java.util.stream.Collectors;
 @Service
 public class UserService {
 
+    private static final Sort LISTING_ORDER = Sort.by("createdAt", "userId").ascending();
+
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private AccountSnapshotCache accountSnapshotCache;
+
+    @Autowired
+    private UserRoleRepository userRoleRepository;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${omnichannel.users.export.fetch-size:500}")
+    private int exportFetchSize;
+
     @Transactional
     public UserResponse createUser(UserRequest request) {
         if (userRepository.existsByEmail(request.getEmail())) {
@@ -45,20 +89,77 @@ public class UserService {
     }
 
     public UserResponse getUserById(UUID userId) {
-        User user = userRepository.findById(userId)
+        User user = userRepository.findWithRolesByUserId(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
         return convertToResponse(user);
     }
 
     public List<UserResponse> getAllUsers() {
-        return userRepository.findAll().stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        return convertToResponses(userRepository.findAllWithRoles());
+    }
+
+    /**
+     * Search users by keyset paging in the order of the index the leading filter range-scans:
+     * (email, userId) for an email prefix, (phone, userId) for a phone prefix, (lastName, firstName,
+     * userId) for a last name prefix, and oldest first by (createdAt, userId) otherwise.
+     * Only the response columns are selected and roles are fetched for the page in one query,
+     * so every page costs two statements however deep it is.
+     */
+    public PaginatedUserResponse searchUsers(UserSearchRequest request) {
+        int pageSize = request.getSize() != null ? request.getSize() : 20;
+        SearchOrder order = SearchOrder.of(request);
+        String cursor = request.getCursor();
+        UserCursor after = cursor == null || cursor.isBlank() ? null : UserCursor.decode(cursor, order);
+
+        Specification<User> spec = UserSpecifications.matching(request);
+        if (after != null) {
+            spec = spec.and(UserSpecifications.after(order.keys, after.values()));
+        }
+        Slice<UserResponse> slice = userRepository.findUserSlice(spec, PageRequest.of(0, pageSize, order.sort()));
+
+        List<UserResponse> users = slice.getContent();
+        fillRoles(users);
+        fillWalletBalances(users);
+        String nextCursor = null;
+        if (slice.hasNext() && !users.isEmpty()) {
+            nextCursor = new UserCursor(order, order.keyOf(users.get(users.size() - 1))).encode();
+        }
+
+        return PaginatedUserResponse.builder()
+                .users(users)
+                .pageSize(pageSize)
+                .hasNext(slice.hasNext())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Write all matching users to the stream as NDJSON, oldest first. Rows are read through a
+     * forward-only cursor and written in chunks of the fetch size, each with one role lookup,
+     * so memory use does not depend on the number of users.
+     */
+    @Transactional(readOnly = true)
+    public void exportUsers(UserType userType, UserStatus status, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        List<UserResponse> chunk = new ArrayList<>(exportFetchSize);
+        try {
+            userRepository.scrollUsers(UserSpecifications.matching(userType, status), LISTING_ORDER,
+                    exportFetchSize, user -> {
+                        chunk.add(user);
+                        if (chunk.size() == exportFetchSize) {
+                            writeChunk(writer, chunk);
+                        }
+                    });
+            writeChunk(writer, chunk);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
     }
 
     @Transactional
     public UserResponse updateUser(UUID userId, UserRequest request) {
-        User user = userRepository.findById(userId)
+        User user = userRepository.findWithRolesByUserId(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
 
         if (request.getFirstName() != null) {
@@ -87,6 +188,7 @@ public class UserService {
         }
 
         User updatedUser = userRepository.save(user);
+        accountSnapshotCache.invalidate(userId);
         return convertToResponse(updatedUser);
     }
 
@@ -95,41 +197,92 @@ public class UserService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
         userRepository.delete(user);
+        accountSnapshotCache.invalidate(userId);
     }
 
     public List<UserResponse> getUsersByType(UserType userType) {
-        return userRepository.findByUserType(userType).stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        return convertToResponses(userRepository.findByUserType(userType));
     }
 
     public List<UserResponse> getUsersByStatus(UserStatus status) {
-        return userRepository.findByStatus(status).stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        return convertToResponses(userRepository.findByStatus(status));
     }
 
     @Transactional
     public UserResponse updateUserStatus(UUID userId, UserStatus status) {
-        User user = userRepository.findById(userId)
+        User user = userRepository.findWithRolesByUserId(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
         
         user.setStatus(status);
         User updatedUser = userRepository.save(user);
+        accountSnapshotCache.invalidate(userId);
         return convertToResponse(updatedUser);
     }
 
     @Transactional
     public UserResponse updateUserKycStatus(UUID userId, KycStatus kycStatus) {
-        User user = userRepository.findById(userId)
+        User user = userRepository.findWithRolesByUserId(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
         
         user.setKycStatus(kycStatus);
         User updatedUser = userRepository.save(user);
+        accountSnapshotCache.invalidate(userId);
         return convertToResponse(updatedUser);
     }
 
+    private void writeChunk(Writer writer, List<UserResponse> chunk) {
+        fillRoles(chunk);
+        fillWalletBalances(chunk);
+        try {
+            for (UserResponse user : chunk) {
+                writer.write(objectMapper.writeValueAsString(user));
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        chunk.clear();
+    }
+
+    private void fillRoles(List<UserResponse> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        Map<UUID, Set<String>> roles = new HashMap<>();
+        users.forEach(user -> roles.put(user.getUserId(), new HashSet<>()));
+        for (Object[] row : userRoleRepository.findUserIdAndRoleNames(roles.keySet())) {
+            roles.get((UUID) row[0]).add((String) row[1]);
+        }
+        users.forEach(user -> user.setRoles(roles.get(user.getUserId())));
+    }
+
+    /**
+     * Replace the stored wallet_balance column with the spendable balance for wallets that
+     * keep part of it elsewhere (sharded or in-memory wallets), for the whole list at once
+     */
+    private void fillWalletBalances(List<UserResponse> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        Map<UUID, BigDecimal> storedBalances = new HashMap<>();
+        users.forEach(user -> storedBalances.put(user.getUserId(), user.getWalletBalance()));
+        Map<UUID, BigDecimal> balances = walletService.getBalances(storedBalances);
+        users.forEach(user -> user.setWalletBalance(balances.get(user.getUserId())));
+    }
+
+    private List<UserResponse> convertToResponses(List<User> users) {
+        List<UserResponse> responses = users.stream()
+                .map(this::toResponse)
+                .collect(Collectors.toList());
+        fillWalletBalances(responses);
+        return responses;
+    }
+
     private UserResponse convertToResponse(User user) {
+        return convertToResponses(List.of(user)).get(0);
+    }
+
+    private UserResponse toResponse(User user) {
         Set<String> roles = user.getUserRoles().stream()
                 .map(ur -> ur.getRole().getName())
                 .collect(Collectors.toSet());
@@ -149,5 +302,91 @@ public class UserService {
                 .updatedAt(user.getUpdatedAt())
                 .build();
     }
-}
 
+    /**
+     * Sort key of a user search. The secondary indexes on email, phone and (last_name, first_name)
+     * carry the primary key, so each order is exactly the order of its index entries.
+     */
+    private enum SearchOrder {
+        EMAIL("email"),
+        PHONE("phone"),
+        NAME("lastName", "firstName"),
+        CREATED("createdAt");
+
+        private final List<String> keys;
+
+        SearchOrder(String... columns) {
+            List<String> keys = new ArrayList<>(List.of(columns));
+            keys.add("userId");
+            this.keys = List.copyOf(keys);
+        }
+
+        static SearchOrder of(UserSearchRequest request) {
+            if (UserSpecifications.hasText(request.getEmail())) {
+                return EMAIL;
+            }
+            if (UserSpecifications.hasText(request.getPhone())) {
+                return PHONE;
+            }
+            if (UserSpecifications.hasText(request.getLastName())) {
+                return NAME;
+            }
+            return CREATED;
+        }
+
+        Sort sort() {
+            return Sort.by(keys.toArray(String[]::new)).ascending();
+        }
+
+        List<Comparable<?>> keyOf(UserResponse user) {
+            return switch (this) {
+                case EMAIL -> List.of(user.getEmail(), user.getUserId());
+                case PHONE -> List.of(user.getPhone(), user.getUserId());
+                case NAME -> List.of(user.getLastName(), user.getFirstName(), user.getUserId());
+                case CREATED -> List.of(user.getCreatedAt(), user.getUserId());
+            };
+        }
+
+        Comparable<?> parse(String key, String value) {
+            return switch (key) {
+                case "userId" -> UUID.fromString(value);
+                case "createdAt" -> LocalDateTime.parse(value);
+                default -> value;
+            };
+        }
+    }
+
+    /**
+     * Position after the last row of a user page: the search order followed by that row's sort key,
+     * each value URL-encoded and joined with "|", then encoded as URL-safe base64
+     */
+    private record UserCursor(SearchOrder order, List<Comparable<?>> values) {
+
+        String encode() {
+            StringBuilder raw = new StringBuilder(order.name());
+            values.forEach(value -> raw.append('|').append(URLEncoder.encode(value.toString(), StandardCharsets.UTF_8)));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Decode a cursor, which must have been issued by a search in the same order
+         */
+        static UserCursor decode(String cursor, SearchOrder expected) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                String[] parts = raw.split("\\|", -1);
+                if (SearchOrder.valueOf(parts[0]) != expected || parts.length != expected.keys.size() + 1) {
+                    throw new IllegalArgumentException("Cursor belongs to another search order");
+                }
+                List<Comparable<?>> values = new ArrayList<>();
+                for (int i = 1; i < parts.length; i++) {
+                    values.add(expected.parse(expected.keys.get(i - 1),
+                            URLDecoder.decode(parts[i], StandardCharsets.UTF_8)));
+                }
+                return new UserCursor(expected, values);
+            } catch (RuntimeException e) {
+                throw new InvalidCursorException("Invalid user cursor: " + cursor);
+            }
+        }
+    }
+}
@@ -2,7 +2,6 @@ package com.kpmg.omnichannel.service;
 
 import com.kpmg.omnichannel.exception.InsufficientBalanceException;
 import com.kpmg.omnichannel.exception.ResourceNotFoundException;
-import com.kpmg.omnichannel.model.User;
 import com.kpmg.omnichannel.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -10,6 +9,15 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.UUID;
 
 @Service
@@ -18,14 +26,43 @@ import java.util.UUID;
 public class WalletService {
 
     private final UserRepository userRepository;
+    private final Optional<InMemoryWalletBalanceStore> balanceStore;
+    private final WalletShardService shardService;
+    private final LedgerService ledgerService;
 
     /**
      * Get wallet balance for a user
      */
     public BigDecimal getBalance(UUID userId) {
-        User user = userRepository.findById(userId)
+        if (balanceStore.isPresent()) {
+            return balanceStore.get().getBalance(userId);
+        }
+        if (shardService.isSharded(userId)) {
+            return shardService.getBalance(userId);
+        }
+        return userRepository.findWalletBalanceById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
-        return user.getWalletBalance();
+    }
+
+    /**
+     * Current balances of wallets whose users.wallet_balance column has already been read, keyed
+     * by user id. Stored values are returned as-is except for wallets held in memory, which are
+     * seeded from them, and sharded wallets, whose totals are read in one grouped query.
+     */
+    public Map<UUID, BigDecimal> getBalances(Map<UUID, BigDecimal> storedBalances) {
+        Map<UUID, BigDecimal> balances = new HashMap<>(storedBalances);
+        if (balanceStore.isPresent()) {
+            storedBalances.forEach((userId, stored) ->
+                    balances.put(userId, balanceStore.get().getBalance(userId, stored)));
+            return balances;
+        }
+        List<UUID> sharded = storedBalances.keySet().stream()
+                .filter(shardService::isSharded)
+                .toList();
+        if (!sharded.isEmpty()) {
+            balances.putAll(shardService.getBalances(sharded));
+        }
+        return balances;
     }
 
     /**
@@ -37,12 +74,16 @@ public class WalletService {
             throw new IllegalArgumentException("Amount must be greater than zero");
         }
 
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
+        if (balanceStore.isPresent()) {
+            BigDecimal newBalance = balanceStore.get().credit(userId, amount);
+            ledgerService.recordCredit(userId, amount);
+            log.info("Added {} to user {}. New balance: {}", amount, userId, newBalance);
+            return newBalance;
+        }
 
-        BigDecimal newBalance = user.getWalletBalance().add(amount);
-        user.setWalletBalance(newBalance);
-        userRepository.save(user);
+        credit(userId, amount);
+        ledgerService.recordCredit(userId, amount);
+        BigDecimal newBalance = getBalance(userId);
 
         log.info("Added {} to user {}. New balance: {}", amount, userId, newBalance);
         return newBalance;
@@ -57,20 +98,16 @@ public class WalletService {
             throw new IllegalArgumentException("Amount must be greater than zero");
         }
 
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
-
-        // Check sufficient balance
-        if (user.getWalletBalance().compareTo(amount) < 0) {
-            throw new InsufficientBalanceException(
-                    String.format("Insufficient balance. Available: %.2f, Required: %.2f",
-                            user.getWalletBalance(), amount)
-            );
+        if (balanceStore.isPresent()) {
+            BigDecimal newBalance = balanceStore.get().debit(userId, amount);
+            ledgerService.recordDebit(userId, amount);
+            log.info("Deducted {} from user {}. New balance: {}", amount, userId, newBalance);
+            return newBalance;
         }
 
-        BigDecimal newBalance = user.getWalletBalance().subtract(amount);
-        user.setWalletBalance(newBalance);
-        userRepository.save(user);
+        debit(userId, amount);
+        ledgerService.recordDebit(userId, amount);
+        BigDecimal newBalance = getBalance(userId);
 
         log.info("Deducted {} from user {}. New balance: {}", amount, userId, newBalance);
         return newBalance;
@@ -81,25 +118,173 @@ public class WalletService {
      */
     @Transactional
     public void transfer(UUID fromUserId, UUID toUserId, BigDecimal amount) {
+        transfer(fromUserId, toUserId, amount, null);
+    }
+
+    /**
+     * Transfer money between users on behalf of a payment transaction.
+     * Both legs are single guarded UPDATE statements, issued in user id order so that
+     * concurrent transfers touching the same two rows always lock them in the same order.
+     * The debit and credit ledger entries are appended in the same database transaction.
+     */
+    @Transactional
+    public void transfer(UUID fromUserId, UUID toUserId, BigDecimal amount, UUID transactionId) {
         if (amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Transfer amount must be greater than zero");
         }
 
-        // Deduct from sender
-        deductMoney(fromUserId, amount);
+        if (balanceStore.isPresent()) {
+            balanceStore.get().transfer(fromUserId, toUserId, amount);
+            ledgerService.recordTransfer(transactionId, fromUserId, toUserId, amount);
+            log.info("Transferred {} from user {} to user {}", amount, fromUserId, toUserId);
+            return;
+        }
 
-        // Add to receiver
-        addMoney(toUserId, amount);
+        if (fromUserId.compareTo(toUserId) <= 0) {
+            debit(fromUserId, amount);
+            credit(toUserId, amount);
+        } else {
+            credit(toUserId, amount);
+            debit(fromUserId, amount);
+        }
+        ledgerService.recordTransfer(transactionId, fromUserId, toUserId, amount);
 
         log.info("Transferred {} from user {} to user {}", amount, fromUserId, toUserId);
     }
 
+    /**
+     * Apply a batch of transfers in one database transaction. Every account the batch touches is
+     * locked once, in ascending id order: payers are consolidated and read for update, payees
+     * lock their users row, or a single shard if their wallet is sharded. Transfers are then
+     * accepted in list order against the payers' starting balances, and each account's net
+     * change is applied in the same id order. Credits received in the batch are not spendable
+     * within it; transfers whose payer cannot cover them are skipped.
+     *
+     * @return ids of the transactions rejected for insufficient balance
+     */
+    @Transactional
+    public Set<UUID> transferAll(List<Transfer> transfers) {
+        Set<UUID> rejected = new HashSet<>();
+        List<Transfer> accepted = new ArrayList<>(transfers.size());
+
+        if (balanceStore.isPresent()) {
+            for (Transfer transfer : transfers) {
+                try {
+                    balanceStore.get().transfer(transfer.fromUserId(), transfer.toUserId(), transfer.amount());
+                    accepted.add(transfer);
+                } catch (InsufficientBalanceException e) {
+                    rejected.add(transfer.transactionId());
+                }
+            }
+        } else {
+            Set<UUID> payers = new HashSet<>();
+            SortedSet<UUID> accounts = new TreeSet<>();
+            for (Transfer transfer : transfers) {
+                payers.add(transfer.fromUserId());
+                accounts.add(transfer.fromUserId());
+                accounts.add(transfer.toUserId());
+            }
+
+            Map<UUID, BigDecimal> available = new HashMap<>();
+            Map<UUID, Integer> creditShards = new HashMap<>();
+            for (UUID account : accounts) {
+                if (payers.contains(account)) {
+                    available.put(account, lockBalance(account));
+                } else if (shardService.isSharded(account)) {
+                    creditShards.put(account, shardService.lockShard(account));
+                } else {
+                    lockBalance(account);
+                }
+            }
+
+            Map<UUID, BigDecimal> deltas = new HashMap<>();
+            for (Transfer transfer : transfers) {
+                BigDecimal balance = available.get(transfer.fromUserId());
+                if (balance.compareTo(transfer.amount()) < 0) {
+                    rejected.add(transfer.transactionId());
+                    continue;
+                }
+                available.put(transfer.fromUserId(), balance.subtract(transfer.amount()));
+                deltas.merge(transfer.fromUserId(), transfer.amount().negate(), BigDecimal::add);
+                deltas.merge(transfer.toUserId(), transfer.amount(), BigDecimal::add);
+                accepted.add(transfer);
+            }
+
+            // Every row is already locked, so applying the changes cannot wait on another batch
+            for (UUID account : accounts) {
+                BigDecimal delta = deltas.getOrDefault(account, BigDecimal.ZERO);
+                if (delta.signum() == 0) {
+                    continue;
+                }
+                Integer shardNo = creditShards.get(account);
+                if (shardNo != null) {
+                    shardService.creditShard(account, shardNo, delta);
+                } else {
+                    userRepository.adjustWalletBalance(account, delta);
+                }
+            }
+        }
+
+        ledgerService.recordTransfers(accepted);
+        log.info("Settled {} transfers, rejected {}", accepted.size(), rejected.size());
+        return rejected;
+    }
+
     /**
      * Check if user has sufficient balance
      */
     public boolean hasSufficientBalance(UUID userId, BigDecimal amount) {
-        User user = userRepository.findById(userId)
+        if (balanceStore.isPresent()) {
+            return balanceStore.get().hasSufficientBalance(userId, amount);
+        }
+        return getBalance(userId).compareTo(amount) >= 0;
+    }
+
+    /**
+     * Get the wallet balance as materialized from the ledger
+     */
+    public BigDecimal getLedgerBalance(UUID userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User not found with id: " + userId);
+        }
+        return ledgerService.getBalance(userId);
+    }
+
+    public record Transfer(UUID transactionId, UUID fromUserId, UUID toUserId, BigDecimal amount) {
+    }
+
+    private void credit(UUID userId, BigDecimal amount) {
+        if (shardService.isSharded(userId)) {
+            shardService.credit(userId, amount);
+            return;
+        }
+        if (userRepository.adjustWalletBalance(userId, amount) == 0) {
+            throw new ResourceNotFoundException("User not found with id: " + userId);
+        }
+    }
+
+    /**
+     * Lock a wallet's users row and return its spendable balance, folding in any shards first
+     */
+    private BigDecimal lockBalance(UUID userId) {
+        if (shardService.isSharded(userId)) {
+            return shardService.consolidate(userId);
+        }
+        return userRepository.findWalletBalanceForUpdate(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
-        return user.getWalletBalance().compareTo(amount) >= 0;
+    }
+
+    private void debit(UUID userId, BigDecimal amount) {
+        if (shardService.isSharded(userId)) {
+            // Pending shard credits must be spendable; the users row is locked before the shards
+            shardService.consolidate(userId);
+        }
+        if (userRepository.debitWalletBalance(userId, amount) == 0) {
+            BigDecimal available = getBalance(userId);
+            throw new InsufficientBalanceException(
+                    String.format("Insufficient balance. Available: %.2f, Required: %.2f",
+                            available, amount)
+            );
+        }
     }
 }
@@ -0,0 +1,190 @@
+package com.kpmg.omnichannel.service;
+
+import com.kpmg.omnichannel.exception.ResourceNotFoundException;
+import com.kpmg.omnichannel.model.WalletBalanceShard;
+import com.kpmg.omnichannel.repository.UserRepository;
+import com.kpmg.omnichannel.repository.WalletBalanceShardRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sharded balances for hot merchant wallets.
+ *
+ * Credits to a sharded wallet go to one of N wallet_balance_shards rows picked at random,
+ * so concurrent checkouts to the same merchant no longer serialize on its users row.
+ * The spendable balance is users.wallet_balance plus the shards. Shards are folded back into
+ * users.wallet_balance on a schedule and before every debit of a sharded wallet.
+ *
+ * Wallets are sharded via omnichannel.wallet.sharding.merchant-ids or {@link #enableSharding(UUID)}.
+ */
+@Service
+@Slf4j
+public class WalletShardService {
+
+    private final WalletBalanceShardRepository shardRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate requiresNewTemplate;
+    private final int shardCount;
+    private final List<UUID> configuredMerchantIds;
+
+    private final Set<UUID> shardedUserIds = ConcurrentHashMap.newKeySet();
+
+    public WalletShardService(WalletBalanceShardRepository shardRepository,
+                              UserRepository userRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${omnichannel.wallet.sharding.shards:8}") int shardCount,
+                              @Value("${omnichannel.wallet.sharding.merchant-ids:}") String[] merchantIds) {
+        this.shardRepository = shardRepository;
+        this.userRepository = userRepository;
+        this.requiresNewTemplate = new TransactionTemplate(transactionManager);
+        this.requiresNewTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.shardCount = shardCount;
+        this.configuredMerchantIds = Arrays.stream(merchantIds)
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .map(UUID::fromString)
+                .toList();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadShardedWallets() {
+        shardedUserIds.addAll(shardRepository.findShardedUserIds());
+        for (UUID merchantId : configuredMerchantIds) {
+            try {
+                enableSharding(merchantId);
+            } catch (ResourceNotFoundException e) {
+                log.warn("Skipping wallet sharding for unknown merchant {}", merchantId);
+            }
+        }
+        if (!shardedUserIds.isEmpty()) {
+            log.info("Wallet sharding active for {} wallets with {} shards each", shardedUserIds.size(), shardCount);
+        }
+    }
+
+    public boolean isSharded(UUID userId) {
+        return shardedUserIds.contains(userId);
+    }
+
+    /**
+     * Create the shard rows for a wallet. Runs in its own transaction so the rows
+     * are visible to all concurrent credits immediately.
+     */
+    public void enableSharding(UUID userId) {
+        if (isSharded(userId)) {
+            return;
+        }
+        requiresNewTemplate.executeWithoutResult(status -> {
+            if (!userRepository.existsById(userId)) {
+                throw new ResourceNotFoundException("User not found with id: " + userId);
+            }
+            if (!shardRepository.existsByUserId(userId)) {
+                List<WalletBalanceShard> shards = new ArrayList<>();
+                for (int shardNo = 0; shardNo < shardCount; shardNo++) {
+                    WalletBalanceShard shard = new WalletBalanceShard();
+                    shard.setUserId(userId);
+                    shard.setShardNo(shardNo);
+                    shards.add(shard);
+                }
+                shardRepository.saveAll(shards);
+            }
+        });
+        shardedUserIds.add(userId);
+    }
+
+    /**
+     * Credit one randomly chosen shard of a sharded wallet
+     */
+    @Transactional
+    public void credit(UUID userId, BigDecimal amount) {
+        creditShard(userId, ThreadLocalRandom.current().nextInt(shardCount), amount);
+    }
+
+    /**
+     * Lock one randomly chosen shard of a sharded wallet for a later {@link #creditShard}, without
+     * touching the users row
+     *
+     * @return the locked shard number
+     */
+    @Transactional
+    public int lockShard(UUID userId) {
+        int shardNo = ThreadLocalRandom.current().nextInt(shardCount);
+        shardRepository.findByUserIdAndShardNoForUpdate(userId, shardNo)
+                .orElseThrow(() -> new ResourceNotFoundException("Wallet shard " + shardNo + " not found for user: " + userId));
+        return shardNo;
+    }
+
+    @Transactional
+    public void creditShard(UUID userId, int shardNo, BigDecimal amount) {
+        if (shardRepository.creditShard(userId, shardNo, amount) == 0) {
+            throw new ResourceNotFoundException("Wallet shard " + shardNo + " not found for user: " + userId);
+        }
+    }
+
+    public BigDecimal getBalance(UUID userId) {
+        return shardRepository.findTotalBalance(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
+    }
+
+    /**
+     * Spendable balances of several sharded wallets in one statement; unknown ids are absent
+     */
+    public Map<UUID, BigDecimal> getBalances(Collection<UUID> userIds) {
+        Map<UUID, BigDecimal> balances = new HashMap<>();
+        for (Object[] row : shardRepository.findTotalBalances(userIds)) {
+            balances.put((UUID) row[0], (BigDecimal) row[1]);
+        }
+        return balances;
+    }
+
+    /**
+     * Fold all shards of a wallet into users.wallet_balance. The users row is locked first, then
+     * the shard rows, the same per-account order batch settlement takes its locks in.
+     *
+     * @return the consolidated users.wallet_balance
+     */
+    @Transactional
+    public BigDecimal consolidate(UUID userId) {
+        BigDecimal balance = userRepository.findWalletBalanceForUpdate(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
+        BigDecimal pending = BigDecimal.ZERO;
+        for (WalletBalanceShard shard : shardRepository.findByUserIdForUpdate(userId)) {
+            pending = pending.add(shard.getBalance());
+            shard.setBalance(BigDecimal.ZERO);
+        }
+        if (pending.signum() != 0) {
+            userRepository.adjustWalletBalance(userId, pending);
+        }
+        return balance.add(pending);
+    }
+
+    @Scheduled(fixedDelayString = "${omnichannel.wallet.sharding.consolidate-interval-ms:5000}")
+    public void consolidateAll() {
+        for (UUID userId : shardedUserIds) {
+            try {
+                requiresNewTemplate.executeWithoutResult(status -> consolidate(userId));
+            } catch (Exception e) {
+                log.warn("Failed to consolidate wallet shards for user {}", userId, e);
+            }
+        }
+    }
+}
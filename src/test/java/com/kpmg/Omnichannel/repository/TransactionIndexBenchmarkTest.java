@@ -0,0 +1,204 @@
+package com.kpmg.omnichannel.repository;
+
+import com.kpmg.omnichannel.model.KycStatus;
+import com.kpmg.omnichannel.model.PaymentType;
+import com.kpmg.omnichannel.model.TransactionStatus;
+import com.kpmg.omnichannel.model.User;
+import com.kpmg.omnichannel.model.UserStatus;
+import com.kpmg.omnichannel.model.UserType;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Seeds the transactions table and compares, for each report access path, the H2 plan and
+ * query time with the managed indexes against the indexes the table had before them
+ * (primary key, foreign keys, the idempotency key and created_at). Plans are asserted;
+ * timings are only logged, as they depend on the machine.
+ *
+ * Tagged "benchmark" and left out of the default build; run it with {@code mvn test -Pbenchmark}.
+ * The rows are seeded into a database of its own, which is dropped with the context afterwards,
+ * so they never reach the shared test database.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.datasource.url=jdbc:h2:mem:index-benchmark"
+})
+@DirtiesContext
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TransactionIndexBenchmarkTest {
+
+    private static final int USERS = 200;
+    private static final int PAYMENT_TYPES = 20;
+    private static final int TRANSACTIONS = 50_000;
+    private static final int RUNS = 50;
+
+    private static final Set<String> MANAGED_INDEXES = Set.of(
+            "IDX_TRANSACTIONS_USER_CREATED",
+            "IDX_TRANSACTIONS_MERCHANT_CREATED",
+            "IDX_TRANSACTIONS_USER_STATUS",
+            "IDX_TRANSACTIONS_STATUS_CREATED",
+            "IDX_TRANSACTIONS_PAYMENT_TYPE_STATUS");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PaymentTypeRepository paymentTypeRepository;
+
+    private final List<UUID> userIds = new ArrayList<>();
+    private final List<UUID> paymentTypeIds = new ArrayList<>();
+    private String baselineIndexes;
+
+    @BeforeAll
+    void seed() {
+        for (int i = 0; i < USERS; i++) {
+            userIds.add(userRepository.save(user()).getUserId());
+        }
+        for (int i = 0; i < PAYMENT_TYPES; i++) {
+            PaymentType paymentType = new PaymentType();
+            paymentType.setName("IDX-" + UUID.randomUUID().toString().substring(0, 8));
+            paymentTypeIds.add(paymentTypeRepository.save(paymentType).getPaymentTypeId());
+        }
+
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.now().minusDays(365);
+        List<Object[]> rows = new ArrayList<>(TRANSACTIONS);
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            Timestamp createdAt = Timestamp.valueOf(start.plusMinutes(random.nextInt(365 * 24 * 60)));
+            rows.add(new Object[]{
+                    UUID.randomUUID(),
+                    userIds.get(random.nextInt(USERS)),
+                    userIds.get(random.nextInt(USERS)),
+                    paymentTypeIds.get(random.nextInt(PAYMENT_TYPES)),
+                    BigDecimal.valueOf(1 + random.nextInt(10_000)),
+                    "INR",
+                    status(random.nextInt(100)).name(),
+                    createdAt,
+                    createdAt});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO transactions (transaction_id, user_id, merchant_id, payment_type_id, " +
+                "amount, currency, status, version, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, 0, ?, ?)", rows);
+        jdbcTemplate.execute("ANALYZE TABLE transactions");
+
+        List<String> baseline = jdbcTemplate.queryForList("SELECT index_name FROM information_schema.indexes " +
+                "WHERE table_schema = 'PUBLIC' AND table_name = 'TRANSACTIONS'", String.class).stream()
+                .filter(name -> !MANAGED_INDEXES.contains(name))
+                .toList();
+        baselineIndexes = String.join(", ", baseline);
+    }
+
+    @Test
+    void userHistoryByDate() {
+        compare("IDX_TRANSACTIONS_USER_CREATED",
+                "SELECT transaction_id FROM %s WHERE user_id = '" + userIds.get(0) + "' " +
+                "AND created_at BETWEEN DATEADD('DAY', -30, CURRENT_TIMESTAMP) AND CURRENT_TIMESTAMP " +
+                "ORDER BY created_at DESC, transaction_id DESC LIMIT 20");
+    }
+
+    @Test
+    void merchantHistoryByDate() {
+        compare("IDX_TRANSACTIONS_MERCHANT_CREATED",
+                "SELECT transaction_id FROM %s WHERE merchant_id = '" + userIds.get(1) + "' " +
+                "AND created_at BETWEEN DATEADD('DAY', -30, CURRENT_TIMESTAMP) AND CURRENT_TIMESTAMP " +
+                "ORDER BY created_at DESC, transaction_id DESC LIMIT 20");
+    }
+
+    @Test
+    void userTotalsByStatus() {
+        compare("IDX_TRANSACTIONS_USER_STATUS",
+                "SELECT COUNT(*) FROM %s WHERE user_id = '" + userIds.get(2) + "' AND status = 'PROCESSING'");
+    }
+
+    @Test
+    void statusCountsByDateRange() {
+        compare("IDX_TRANSACTIONS_STATUS_CREATED",
+                "SELECT COUNT(*) FROM %s WHERE status = 'PROCESSING' " +
+                "AND created_at BETWEEN DATEADD('DAY', -7, CURRENT_TIMESTAMP) AND CURRENT_TIMESTAMP");
+    }
+
+    @Test
+    void paymentTypeTotalsByStatus() {
+        compare("IDX_TRANSACTIONS_PAYMENT_TYPE_STATUS",
+                "SELECT COUNT(*), SUM(amount) FROM %s WHERE payment_type_id = '" + paymentTypeIds.get(0) + "' " +
+                "AND status = 'FAILED'");
+    }
+
+    /**
+     * Run the query restricted to the baseline indexes and with all indexes, log both plans
+     * and timings, and check that the managed index serves every predicate of the access path.
+     * Without it the best H2 can do is seek on one column and filter the rest row by row.
+     */
+    private void compare(String expectedIndex, String sql) {
+        String baselineSql = sql.formatted("transactions USE INDEX (" + baselineIndexes + ")");
+        String managedSql = sql.formatted("transactions");
+
+        String baselinePlan = plan(baselineSql);
+        String managedPlan = plan(managedSql);
+        double baselineMicros = time(baselineSql);
+        double managedMicros = time(managedSql);
+
+        log.info("[{}] baseline {} us, managed {} us\n  baseline plan: {}\n  managed plan:  {}",
+                expectedIndex, Math.round(baselineMicros), Math.round(managedMicros), baselinePlan, managedPlan);
+
+        assertTrue(managedPlan.contains(expectedIndex), managedPlan);
+        assertFalse(managedPlan.contains("tableScan"), managedPlan);
+    }
+
+    private String plan(String sql) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class).replaceAll("\\s+", " ");
+    }
+
+    private double time(String sql) {
+        jdbcTemplate.queryForList(sql);
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            jdbcTemplate.queryForList(sql);
+        }
+        return (System.nanoTime() - start) / 1_000.0 / RUNS;
+    }
+
+    private static TransactionStatus status(int percentile) {
+        if (percentile < 80) {
+            return TransactionStatus.SUCCESS;
+        }
+        if (percentile < 95) {
+            return TransactionStatus.FAILED;
+        }
+        return percentile < 99 ? TransactionStatus.INITIATED : TransactionStatus.PROCESSING;
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setFirstName("Index");
+        user.setLastName("Benchmark");
+        user.setEmail(UUID.randomUUID() + "@index.test");
+        user.setUserType(UserType.RETAIL);
+        user.setStatus(UserStatus.ACTIVE);
+        user.setKycStatus(KycStatus.VERIFIED);
+        return user;
+    }
+}
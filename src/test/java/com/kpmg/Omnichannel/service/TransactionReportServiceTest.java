@@ -0,0 +1,148 @@
+package com.kpmg.omnichannel.service;
+
+import com.kpmg.omnichannel.dto.report.PaginatedTransactionHistoryDTO;
+import com.kpmg.omnichannel.dto.report.PaymentTypeAnalyticsDTO;
+import com.kpmg.omnichannel.dto.report.TransactionHistoryRequest;
+import com.kpmg.omnichannel.dto.report.UserTransactionReportDTO;
+import com.kpmg.omnichannel.exception.ResourceNotFoundException;
+import com.kpmg.omnichannel.model.KycStatus;
+import com.kpmg.omnichannel.model.PaymentType;
+import com.kpmg.omnichannel.model.Transaction;
+import com.kpmg.omnichannel.model.TransactionStatus;
+import com.kpmg.omnichannel.model.User;
+import com.kpmg.omnichannel.model.UserStatus;
+import com.kpmg.omnichannel.model.UserType;
+import com.kpmg.omnichannel.repository.PaymentTypeRepository;
+import com.kpmg.omnichannel.repository.TransactionRepository;
+import com.kpmg.omnichannel.repository.UserRepository;
+import com.kpmg.omnichannel.support.StatementCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.kpmg.omnichannel.support.StatementCounter.countingStatements;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        StatementCounter.PROPERTY
+})
+class TransactionReportServiceTest {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Autowired
+    private TransactionReportService reportService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PaymentTypeRepository paymentTypeRepository;
+
+    @Test
+    void keysetHistoryPageIsOneStatement() {
+        UUID payer = createUserWithTransactions(30);
+
+        PaginatedTransactionHistoryDTO first = countingStatements(1, () -> reportService.getTransactionHistory(
+                TransactionHistoryRequest.builder().userId(payer).size(PAGE_SIZE).cursor("").build()));
+        assertEquals(PAGE_SIZE, first.getTransactions().size());
+        assertNotNull(first.getTransactions().get(0).getMerchantName());
+
+        PaginatedTransactionHistoryDTO second = countingStatements(1, () -> reportService.getTransactionHistory(
+                TransactionHistoryRequest.builder().userId(payer).size(PAGE_SIZE).cursor(first.getNextCursor()).build()));
+        assertEquals(10, second.getTransactions().size());
+    }
+
+    @Test
+    void offsetHistoryPageIsSelectPlusCount() {
+        UUID payer = createUserWithTransactions(30);
+
+        PaginatedTransactionHistoryDTO page = countingStatements(2, () -> reportService.getTransactionHistory(
+                TransactionHistoryRequest.builder().userId(payer).page(0).size(PAGE_SIZE).build()));
+        assertEquals(PAGE_SIZE, page.getTransactions().size());
+        assertEquals(30L, page.getTotalElements());
+    }
+
+    @Test
+    void allHistoryIsOneStatement() {
+        createUserWithTransactions(5);
+
+        countingStatements(1, () -> reportService.getAllTransactionHistory());
+    }
+
+    @Test
+    void userReportStatementCountDoesNotGrowWithTransactions() {
+        UUID light = createUserWithTransactions(2);
+        UUID heavy = createUserWithTransactions(30);
+
+        StatementCounter.reset();
+        reportService.getUserTransactionReport(light);
+        int lightStatements = StatementCounter.count();
+
+        UserTransactionReportDTO report = countingStatements(lightStatements,
+                () -> reportService.getUserTransactionReport(heavy));
+        assertEquals(10, report.getRecentTransactions().size());
+        assertEquals(30L, report.getPaymentTypeUsage().get(0).getTransactionCount());
+    }
+
+    @Test
+    void paymentTypeAnalyticsByIdReadsOnlyThatPaymentType() {
+        PaymentType paymentType = new PaymentType();
+        paymentType.setName("CARD-" + UUID.randomUUID().toString().substring(0, 8));
+        UUID paymentTypeId = paymentTypeRepository.save(paymentType).getPaymentTypeId();
+
+        PaymentTypeAnalyticsDTO analytics = countingStatements(2,
+                () -> reportService.getPaymentTypeAnalyticsById(paymentTypeId));
+        assertEquals(reportService.getPaymentTypeAnalytics().stream()
+                .filter(entry -> entry.getPaymentTypeId().equals(paymentTypeId))
+                .findFirst()
+                .orElseThrow(), analytics);
+        assertThrows(ResourceNotFoundException.class, () -> reportService.getPaymentTypeAnalyticsById(UUID.randomUUID()));
+    }
+
+    /**
+     * Creates a payer with the given number of transactions, each to its own merchant
+     */
+    private UUID createUserWithTransactions(int transactions) {
+        User payer = createUser();
+        PaymentType paymentType = new PaymentType();
+        paymentType.setName("UPI-" + UUID.randomUUID().toString().substring(0, 8));
+        paymentType = paymentTypeRepository.save(paymentType);
+
+        List<Transaction> batch = new ArrayList<>();
+        for (int i = 0; i < transactions; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setUser(payer);
+            transaction.setMerchant(createUser());
+            transaction.setPaymentType(paymentType);
+            transaction.setAmount(BigDecimal.valueOf(i + 1));
+            transaction.setCurrency("INR");
+            transaction.setStatus(TransactionStatus.INITIATED);
+            batch.add(transaction);
+        }
+        transactionRepository.saveAll(batch);
+        return payer.getUserId();
+    }
+
+    private User createUser() {
+        User user = new User();
+        user.setFirstName("Report");
+        user.setLastName("Test");
+        user.setEmail(UUID.randomUUID() + "@report.test");
+        user.setUserType(UserType.RETAIL);
+        user.setStatus(UserStatus.ACTIVE);
+        user.setKycStatus(KycStatus.VERIFIED);
+        return userRepository.save(user);
+    }
+}
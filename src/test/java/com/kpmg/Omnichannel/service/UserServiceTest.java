@@ -0,0 +1,81 @@
+package com.kpmg.omnichannel.service;
+
+import com.kpmg.omnichannel.dto.RoleRequest;
+import com.kpmg.omnichannel.dto.UserRequest;
+import com.kpmg.omnichannel.dto.UserResponse;
+import com.kpmg.omnichannel.model.KycStatus;
+import com.kpmg.omnichannel.model.UserType;
+import com.kpmg.omnichannel.support.StatementCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static com.kpmg.omnichannel.support.StatementCounter.countingStatements;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Statement counts of user listings. getAllUsers reads every user, and wallets sharded by
+ * other tests would add a balance lookup, so this class runs on a database of its own that
+ * is dropped afterwards.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.datasource.url=jdbc:h2:mem:user-service",
+        StatementCounter.PROPERTY
+})
+@DirtiesContext
+class UserServiceTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private RoleService roleService;
+
+    @Test
+    void userListIsOneStatementRegardlessOfUserCount() {
+        String roleName = "ROLE-" + UUID.randomUUID().toString().substring(0, 8);
+        UUID roleId = createRole(roleName);
+        createUsersWithRole(2, roleId);
+        countingStatements(1, () -> userService.getAllUsers());
+
+        createUsersWithRole(30, roleId);
+        List<UserResponse> users = countingStatements(1, () -> userService.getAllUsers());
+        assertEquals(32, users.stream().filter(user -> user.getRoles().contains(roleName)).count());
+    }
+
+    @Test
+    void userByIdLoadsRolesInOneStatement() {
+        UUID roleId = createRole("ROLE-" + UUID.randomUUID().toString().substring(0, 8));
+        UUID userId = createUsersWithRole(1, roleId).get(0);
+
+        UserResponse user = countingStatements(1, () -> userService.getUserById(userId));
+        assertEquals(1, user.getRoles().size());
+    }
+
+    private UUID createRole(String name) {
+        RoleRequest request = new RoleRequest();
+        request.setName(name);
+        request.setDescription("User service test");
+        return roleService.createRole(request).getRoleId();
+    }
+
+    private List<UUID> createUsersWithRole(int count, UUID roleId) {
+        return IntStream.range(0, count).mapToObj(i -> {
+            UserRequest request = new UserRequest();
+            request.setFirstName("Role");
+            request.setLastName("Test");
+            request.setEmail(UUID.randomUUID() + "@users.test");
+            request.setUserType(UserType.RETAIL);
+            request.setKycStatus(KycStatus.VERIFIED);
+            UUID userId = userService.createUser(request).getUserId();
+            roleService.assignRoleToUser(userId, roleId);
+            return userId;
+        }).toList();
+    }
+}
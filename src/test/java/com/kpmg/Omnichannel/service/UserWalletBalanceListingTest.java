@@ -0,0 +1,67 @@
+package com.kpmg.omnichannel.service;
+
+import com.kpmg.omnichannel.dto.UserRequest;
+import com.kpmg.omnichannel.dto.UserResponse;
+import com.kpmg.omnichannel.model.KycStatus;
+import com.kpmg.omnichannel.model.UserType;
+import com.kpmg.omnichannel.support.StatementCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static com.kpmg.omnichannel.support.StatementCounter.countingStatements;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Wallet balances in user listings. Sharded wallets are registered for the lifetime of the
+ * context, so this class runs on a database of its own that is dropped afterwards.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.datasource.url=jdbc:h2:mem:user-wallet-balance-listing",
+        StatementCounter.PROPERTY
+})
+@DirtiesContext
+class UserWalletBalanceListingTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletShardService shardService;
+
+    @Test
+    void shardedWalletBalancesAreResolvedInOneStatementPerList() {
+        List<UUID> merchants = IntStream.range(0, 3).mapToObj(i -> createMerchant()).toList();
+        UUID plain = createMerchant();
+        walletService.addMoney(plain, new BigDecimal("10.00"));
+        for (UUID merchant : merchants) {
+            shardService.enableSharding(merchant);
+            walletService.addMoney(merchant, new BigDecimal("25.00"));
+        }
+
+        List<UserResponse> users = countingStatements(2, () -> userService.getAllUsers());
+        assertEquals(4, users.size());
+        users.forEach(user -> assertEquals(0, (merchants.contains(user.getUserId())
+                ? new BigDecimal("25.00") : new BigDecimal("10.00")).compareTo(user.getWalletBalance())));
+    }
+
+    private UUID createMerchant() {
+        UserRequest request = new UserRequest();
+        request.setFirstName("Sharded");
+        request.setLastName("Merchant");
+        request.setEmail(UUID.randomUUID() + "@wallets.test");
+        request.setUserType(UserType.CORPORATE);
+        request.setKycStatus(KycStatus.VERIFIED);
+        return userService.createUser(request).getUserId();
+    }
+}
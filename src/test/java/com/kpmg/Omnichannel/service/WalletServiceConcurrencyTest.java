@@ -0,0 +1,148 @@
+package com.kpmg.omnichannel.service;
+
+import com.kpmg.omnichannel.exception.InsufficientBalanceException;
+import com.kpmg.omnichannel.model.KycStatus;
+import com.kpmg.omnichannel.model.User;
+import com.kpmg.omnichannel.model.UserStatus;
+import com.kpmg.omnichannel.model.UserType;
+import com.kpmg.omnichannel.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class WalletServiceConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 100;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletShardService shardService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void concurrentTransfersNeverLoseOrCreateMoney() throws Exception {
+        List<UUID> accounts = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            // Balances low enough against transfers of up to 79 that the overdraft guard has to reject some
+            accounts.add(createUser(new BigDecimal("100.00")));
+        }
+        BigDecimal initialTotal = totalBalance(accounts);
+
+        AtomicInteger rejected = new AtomicInteger();
+        runConcurrently(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            UUID from = accounts.get(random.nextInt(accounts.size()));
+            UUID to = accounts.get(random.nextInt(accounts.size()));
+            if (from.equals(to)) {
+                return;
+            }
+            try {
+                walletService.transfer(from, to, BigDecimal.valueOf(random.nextInt(1, 80)));
+            } catch (InsufficientBalanceException e) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        assertTrue(rejected.get() > 0, "no transfer was rejected, so the overdraft guard was not exercised");
+        assertEquals(0, initialTotal.compareTo(totalBalance(accounts)));
+        for (UUID account : accounts) {
+            assertTrue(walletService.getBalance(account).signum() >= 0);
+        }
+    }
+
+    @Test
+    void concurrentPayoutsToOneMerchantAreAllCredited() throws Exception {
+        UUID merchant = createUser(BigDecimal.ZERO);
+        List<UUID> payers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            payers.add(createUser(new BigDecimal("1000.00")));
+        }
+
+        AtomicInteger nextPayer = new AtomicInteger();
+        ThreadLocal<UUID> payer = ThreadLocal.withInitial(() -> payers.get(nextPayer.getAndIncrement()));
+        runConcurrently(() -> walletService.transfer(payer.get(), merchant, new BigDecimal("1.00")));
+
+        BigDecimal expected = BigDecimal.valueOf((long) THREADS * TRANSFERS_PER_THREAD);
+        assertEquals(0, expected.compareTo(walletService.getBalance(merchant)));
+        // Every transfer appended its credit leg to the merchant's ledger
+        assertEquals(0, expected.compareTo(walletService.getLedgerBalance(merchant)));
+        for (UUID id : payers) {
+            assertEquals(0, new BigDecimal("900.00").compareTo(walletService.getBalance(id)));
+        }
+    }
+
+    @Test
+    void concurrentPayoutsToShardedMerchantAreAllCreditedAndConsolidated() throws Exception {
+        UUID merchant = createUser(BigDecimal.ZERO);
+        shardService.enableSharding(merchant);
+        List<UUID> payers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            payers.add(createUser(new BigDecimal("1000.00")));
+        }
+
+        AtomicInteger nextPayer = new AtomicInteger();
+        ThreadLocal<UUID> payer = ThreadLocal.withInitial(() -> payers.get(nextPayer.getAndIncrement()));
+        runConcurrently(() -> walletService.transfer(payer.get(), merchant, new BigDecimal("1.00")));
+
+        BigDecimal expected = BigDecimal.valueOf((long) THREADS * TRANSFERS_PER_THREAD);
+        assertEquals(0, expected.compareTo(walletService.getBalance(merchant)));
+
+        // A debit consolidates the shards first, so the full credited amount is spendable
+        walletService.deductMoney(merchant, expected);
+        assertEquals(0, BigDecimal.ZERO.compareTo(walletService.getBalance(merchant)));
+    }
+
+    private void runConcurrently(Runnable transfer) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    transfer.run();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+    }
+
+    private UUID createUser(BigDecimal balance) {
+        User user = new User();
+        user.setFirstName("Load");
+        user.setLastName("Test");
+        user.setEmail(UUID.randomUUID() + "@wallet.test");
+        user.setUserType(UserType.RETAIL);
+        user.setStatus(UserStatus.ACTIVE);
+        user.setKycStatus(KycStatus.VERIFIED);
+        user.setWalletBalance(balance);
+        return userRepository.save(user).getUserId();
+    }
+
+    private BigDecimal totalBalance(List<UUID> accounts) {
+        return accounts.stream()
+                .map(walletService::getBalance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
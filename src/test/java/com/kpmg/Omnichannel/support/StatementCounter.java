@@ -0,0 +1,45 @@
+package com.kpmg.omnichannel.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread.
+ *
+ * Register it on a test context with {@link #PROPERTY} and assert on a call with
+ * {@link #countingStatements(int, Supplier)}.
+ */
+public class StatementCounter implements StatementInspector {
+
+    public static final String PROPERTY = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+            "com.kpmg.omnichannel.support.StatementCounter";
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    public static int count() {
+        return COUNT.get()[0];
+    }
+
+    /**
+     * Run the call and assert it prepared exactly the expected number of statements
+     */
+    public static <T> T countingStatements(int expected, Supplier<T> call) {
+        reset();
+        T result = call.get();
+        assertEquals(expected, count());
+        return result;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+}